@@ -0,0 +1,379 @@
+package database;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small pool of SQLite connections backing {@link SqlManager}.
+ * All connections run in WAL mode, which lets any number of readers proceed while a single
+ * writer is active. Reads borrow one of the read-only connections; writes are serialized
+ * through one dedicated writer connection. Each connection carries its own {@link StatementCache}
+ * and enforces foreign keys, which SQLite leaves off by default.
+ */
+class ConnectionPool implements Closeable {
+
+    /**
+     * A unit of database work executed against the statement cache of a pooled connection.
+     *
+     * @param <T> the type of the result produced by the work.
+     */
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T apply(StatementCache statements) throws SQLException;
+    }
+
+    // Milliseconds a connection waits on a locked database before failing
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    // Maximum number of compiled statements kept open per connection
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    // Milliseconds a read waits for a free reader connection before failing
+    static final long DEFAULT_READER_TIMEOUT_MS = 10_000;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final StatementCache writer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<StatementCache> readers;
+    private final List<StatementCache> connections = new ArrayList<>();
+    private final int readerCount;
+    private final long readerTimeoutMs;
+
+    // Set once close() starts; no connection is handed out afterwards
+    private volatile boolean closed;
+
+    // Number of open transactions and savepoints on the writer, only touched while holding writeLock
+    private int transactionDepth;
+    // Number of write work calls running on the writer, only touched while holding writeLock
+    private int writeDepth;
+
+    // Incremented after every write in this process and whenever another process is seen to have written
+    private volatile long dataVersion;
+    // Last PRAGMA data_version read from the writer, only touched while holding writeLock
+    private long externalVersion;
+
+    /**
+     * Opens the writer connection and {@code readerCount} read-only connections.
+     *
+     * @param url         the JDBC url of the SQLite database.
+     * @param readerCount the number of read-only connections to open, at least one.
+     * @throws SQLException if any connection fails to open.
+     */
+    ConnectionPool(String url, int readerCount) throws SQLException {
+        this(url, readerCount, DEFAULT_READER_TIMEOUT_MS);
+    }
+
+    /**
+     * Opens the writer connection and {@code readerCount} read-only connections.
+     *
+     * @param url             the JDBC url of the SQLite database.
+     * @param readerCount     the number of read-only connections to open, at least one.
+     * @param readerTimeoutMs the milliseconds a read waits for a free reader before failing.
+     * @throws SQLException if any connection fails to open.
+     */
+    ConnectionPool(String url, int readerCount, long readerTimeoutMs) throws SQLException {
+        this.readerCount = readerCount;
+        this.readerTimeoutMs = readerTimeoutMs;
+        if (readerCount < 1) {
+            throw new IllegalArgumentException("Connection pool needs at least one reader, got " + readerCount);
+        }
+        try {
+            writer = open(url, false);
+            readers = new ArrayBlockingQueue<>(readerCount);
+            for (int i = 0; i < readerCount; i++) {
+                readers.add(open(url, true));
+            }
+        } catch (SQLException e) {
+            closeAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a single connection and applies the pragmas shared by the whole pool.
+     *
+     * @param url      the JDBC url of the SQLite database.
+     * @param readOnly whether the connection should reject writes.
+     * @return the statement cache of the configured connection.
+     * @throws SQLException if the connection cannot be opened or configured.
+     */
+    private StatementCache open(String url, boolean readOnly) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        StatementCache statements = new StatementCache(conn, STATEMENT_CACHE_SIZE, cacheHits, cacheMisses);
+        connections.add(statements);
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA journal_mode = WAL;");
+            st.execute("PRAGMA synchronous = NORMAL;");
+            st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS + ";");
+            st.execute("PRAGMA foreign_keys = ON;");
+            if (readOnly) {
+                st.execute("PRAGMA query_only = ON;");
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Runs read-only work on a borrowed reader connection, waiting until one is free.
+     * A thread that currently holds the writer reads through it instead, so it sees its own changes.
+     *
+     * @param work the work to run.
+     * @param <T>  the type of the result.
+     * @return the result of the work.
+     * @throws SQLException if the work fails, the pool is closed, or no reader becomes free in time.
+     */
+    <T> T read(SqlWork<T> work) throws SQLException {
+        if (writeLock.isHeldByCurrentThread()) {
+            return work.apply(writer);
+        }
+        StatementCache statements = borrowReader();
+        try {
+            return work.apply(statements);
+        } finally {
+            releaseReader(statements);
+        }
+    }
+
+    /**
+     * Runs work on the writer connection. Only one thread writes at a time; the lock is
+     * reentrant so write work may call other write work. The {@link #dataVersion()} is incremented
+     * once the outermost write work ends, whether it succeeded or not.
+     *
+     * @param work the work to run.
+     * @param <T>  the type of the result.
+     * @return the result of the work.
+     * @throws SQLException if the work fails.
+     */
+    <T> T write(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        writeDepth++;
+        try {
+            return work.apply(writer);
+        } finally {
+            // Nested write work is part of the outermost one, which counts as a single change
+            if (--writeDepth == 0) dataVersion++;
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs work on the writer connection while holding the write lock, so no other thread can write while
+     * it runs. The section itself does not change the {@link #dataVersion()}; write work run inside it
+     * counts as usual.
+     *
+     * @param work the work to run.
+     * @param <T>  the type of the result.
+     * @return the result of the work.
+     * @throws SQLException if the work fails.
+     */
+    <T> T exclusive(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            return work.apply(writer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs work on the writer connection inside one explicit SQLite transaction, committing
+     * when the work returns and rolling back when it throws. Work started while a transaction
+     * is already open runs inside a savepoint instead, so only its own changes are undone on failure.
+     *
+     * @param work the work to run.
+     * @param <T>  the type of the result.
+     * @return the result of the work.
+     * @throws SQLException if the work or the commit fails.
+     */
+    <T> T transaction(SqlWork<T> work) throws SQLException {
+        return write(statements -> {
+            Connection conn = statements.connection();
+            if (transactionDepth > 0) {
+                return savepoint(statements, work);
+            }
+            conn.setAutoCommit(false);
+            transactionDepth++;
+            try {
+                T result = work.apply(statements);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                transactionDepth--;
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Runs nested transactional work inside a savepoint of the open transaction.
+     *
+     * @param statements the writer's statement cache.
+     * @param work       the work to run.
+     * @param <T>        the type of the result.
+     * @return the result of the work.
+     * @throws SQLException if the work or the savepoint handling fails.
+     */
+    private <T> T savepoint(StatementCache statements, SqlWork<T> work) throws SQLException {
+        Connection conn = statements.connection();
+        Savepoint savepoint = conn.setSavepoint("nested_" + transactionDepth);
+        transactionDepth++;
+        try {
+            T result = work.apply(statements);
+            conn.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+            throw e;
+        } finally {
+            transactionDepth--;
+        }
+    }
+
+    /**
+     * Borrows a reader connection for work that outlives a single call, such as a lazily consumed
+     * stream. Unlike {@link #read(SqlWork)} a reader is always taken, even by the writing thread.
+     * The connection must be handed back through {@link #releaseReader(StatementCache)}.
+     *
+     * @return the statement cache of the borrowed reader.
+     * @throws SQLException if the pool is closed or no reader becomes free in time.
+     */
+    StatementCache acquireReader() throws SQLException {
+        return borrowReader();
+    }
+
+    /**
+     * Returns a reader taken by {@link #acquireReader()} to the pool. Once the pool is closed the
+     * connection is already closed too, so it is dropped instead.
+     *
+     * @param statements the statement cache of the borrowed reader.
+     */
+    void releaseReader(StatementCache statements) {
+        if (!closed) readers.add(statements);
+    }
+
+    /**
+     * Takes a reader connection from the pool, waiting a bounded time if all of them are in use.
+     * Waiting forever would hang a thread that reads while it still holds every reader itself,
+     * for example from inside the consumer of an open stream.
+     *
+     * @return a reader connection that must be returned to {@link #readers} after use.
+     * @throws SQLException if the pool is closed or no reader becomes free in time.
+     */
+    private StatementCache borrowReader() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        StatementCache statements;
+        try {
+            statements = readers.poll(readerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a database connection", e);
+        }
+        if (statements == null) {
+            throw new SQLTimeoutException("No database connection became free within " + readerTimeoutMs
+                    + " ms; all " + readerCount + " readers are in use, possibly by streams that were not closed");
+        }
+        // A reader handed back while the pool was closing is itself closed
+        if (closed) throw new SQLException("Connection pool is closed");
+        return statements;
+    }
+
+    /**
+     * Retrieves a counter that changes whenever the database may have changed, for validating caches.
+     * Reading it does not touch the database.
+     *
+     * @return the current data version.
+     */
+    long dataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Checks whether another process committed to the database since the last check, incrementing the
+     * {@link #dataVersion()} if so. SQLite's {@code PRAGMA data_version} on the writer only changes for
+     * commits made through other connections, so this process's own writes are not reported twice.
+     *
+     * @return {@code true} if another process changed the database.
+     * @throws SQLException if the pragma cannot be read.
+     */
+    boolean checkExternalChanges() throws SQLException {
+        writeLock.lock();
+        try (Statement st = writer.connection().createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA data_version;")) {
+            long version = rs.next() ? rs.getLong(1) : 0;
+            boolean changed = externalVersion != 0 && version != externalVersion;
+            externalVersion = version;
+            if (changed) dataVersion++;
+            return changed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how many statements were served from a cache instead of being compiled.
+     *
+     * @return the number of statement cache hits across all connections.
+     */
+    long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Retrieves how many statements had to be compiled because they were not cached.
+     *
+     * @return the number of statement cache misses across all connections.
+     */
+    long cacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Closes every cached statement and every connection opened by the pool.
+     * Reads and writes attempted afterwards fail instead of being given a closed connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writeLock.lock();
+        try {
+            closeAll();
+        } finally {
+            readers.clear();
+            writeLock.unlock();
+        }
+    }
+
+    private void closeAll() {
+        RuntimeException failure = null;
+        for (StatementCache statements : connections) {
+            statements.close();
+            try {
+                statements.connection().close();
+            } catch (SQLException e) {
+                if (failure == null) failure = new RuntimeException("Fail to close data base", e);
+                else failure.addSuppressed(e);
+            }
+        }
+        connections.clear();
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,135 @@
+package database;
+
+import database.enums.RecurringRate;
+import database.records.RecurringTransactionRow;
+import database.records.TransactionRow;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the transactions recurring transactions owe up to a given date.
+ * Every due occurrence of every rule is computed up front; each account's occurrences are then posted
+ * as one batch with one balance adjustment and one {@code last_time_transacted} update per rule, all in
+ * a single commit. Accounts are planned in parallel; their commits are serialized, as SQLite allows one writer.
+ * Postings are keyed by (recurring transaction, date), so running a catch-up twice, concurrently with the
+ * scheduler, or again after an interrupted run never posts an occurrence twice.
+ */
+final class RecurringCatchUp {
+
+    /**
+     * The postings owed by the recurring transactions of one account.
+     *
+     * @param postings   the transactions to insert.
+     * @param lastPosted the date of the last posting per recurring transaction ID, in epoch days.
+     */
+    private record Plan(List<TransactionRow> postings, Map<Integer, Integer> lastPosted) {
+    }
+
+    private final SqlManager dbConn;
+
+    /**
+     * Creates an engine posting through the given database manager.
+     *
+     * @param dbConn the database manager performing the writes.
+     */
+    RecurringCatchUp(SqlManager dbConn) {
+        this.dbConn = dbConn;
+    }
+
+    /**
+     * Posts every occurrence of the given recurring transactions that falls before {@code until}
+     * and has not been posted yet.
+     *
+     * @param rules the recurring transactions to catch up.
+     * @param until the first date that is not yet due.
+     */
+    void catchUp(Collection<RecurringTransactionRow> rules, LocalDate until) {
+        Map<Integer, List<RecurringTransactionRow>> byAccount = rules.stream()
+                .collect(Collectors.groupingBy(RecurringTransactionRow::acc_id));
+
+        // Planning is pure computation and runs in parallel; posting stays on the calling thread,
+        // which may already hold the writer and would deadlock waiting for a worker that needs it
+        List<Plan> plans = byAccount.values().parallelStream()
+                .map(accountRules -> plan(accountRules, until))
+                .filter(plan -> !plan.postings().isEmpty())
+                .toList();
+        plans.forEach(this::post);
+    }
+
+    /**
+     * Computes the postings owed by the recurring transactions of one account.
+     *
+     * @param rules the recurring transactions of the account.
+     * @param until the first date that is not yet due.
+     * @return the postings and the new last posted date of each rule that owes any.
+     */
+    private static Plan plan(List<RecurringTransactionRow> rules, LocalDate until) {
+        List<TransactionRow> postings = new ArrayList<>();
+        Map<Integer, Integer> lastPosted = new HashMap<>();
+        for (RecurringTransactionRow rule : rules) {
+            List<LocalDate> due = dueDates(rule, until);
+            if (due.isEmpty()) continue;
+            for (LocalDate date : due) {
+                postings.add(new TransactionRow(0, rule.acc_id(), (int) date.toEpochDay(),
+                        rule.name(), rule.type(), rule.amount(), true, rule.id()));
+            }
+            lastPosted.put(rule.id(), (int) due.get(due.size() - 1).toEpochDay());
+        }
+        return new Plan(postings, lastPosted);
+    }
+
+    /**
+     * Computes the occurrences of a recurring transaction after its last posting and before {@code until}.
+     * The range of occurrence indexes is computed directly by {@link RecurringRate}, anchored on the start date.
+     *
+     * @param rule  the recurring transaction.
+     * @param until the first date that is not yet due.
+     * @return the due dates in ascending order.
+     */
+    static List<LocalDate> dueDates(RecurringTransactionRow rule, LocalDate until) {
+        LocalDate start = LocalDate.ofEpochDay(rule.start_date());
+        RecurringRate rate = rule.recurringRate();
+
+        long first = rule.lastTimeTransacted() == RecurringTransactionRow.NEVER_TRANSACTED
+                ? 0
+                : rate.occurrencesBefore(start, LocalDate.ofEpochDay(rule.lastTimeTransacted() + 1L));
+        long end = rate.occurrencesBefore(start, until);
+
+        List<LocalDate> due = new ArrayList<>((int) Math.max(0, end - first));
+        for (long n = first; n < end; n++) {
+            due.add(rate.nthOccurrence(start, n));
+        }
+        return due;
+    }
+
+    /**
+     * Computes the first occurrence of a recurring transaction on or after a given date.
+     *
+     * @param rule the recurring transaction.
+     * @param from the earliest date to return.
+     * @return the first occurrence not before {@code from}.
+     */
+    static LocalDate firstOccurrenceFrom(RecurringTransactionRow rule, LocalDate from) {
+        LocalDate start = LocalDate.ofEpochDay(rule.start_date());
+        RecurringRate rate = rule.recurringRate();
+        return rate.nthOccurrence(start, rate.occurrencesBefore(start, from));
+    }
+
+    /**
+     * Writes the postings of one account and advances its rules in a single commit.
+     *
+     * @param plan the postings owed by the account.
+     */
+    private void post(Plan plan) {
+        dbConn.inTransaction(tx -> {
+            tx.addRecurringPostings(plan.postings());
+            tx.setLastTimesTransacted(plan.lastPosted());
+        });
+    }
+}
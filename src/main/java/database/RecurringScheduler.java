@@ -0,0 +1,301 @@
+package database;
+
+import database.records.RecurringTransactionRow;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Posts recurring transactions as they come due, on one background thread.
+ * The next due date of every recurring transaction is kept in a min-heap, so the thread sleeps until
+ * the earliest one and each wake-up only touches the rules that are due, instead of scanning the whole
+ * {@code recurring_transaction} table. An occurrence is posted once its date is in the past, matching
+ * {@link SqlManager#checkRecurringTransactions()}.
+ */
+public class RecurringScheduler implements Closeable {
+
+    /**
+     * Singleton scheduler posting through {@link SqlManager#DB_CONNECTION}.
+     */
+    public static final RecurringScheduler SCHEDULER =
+            new RecurringScheduler(SqlManager.DB_CONNECTION, WriteBehindQueue.QUEUE);
+
+    // Seconds to wait before retrying rules whose posting failed
+    private static final long RETRY_DELAY_SECONDS = 60;
+
+    private static final System.Logger LOG = System.getLogger(RecurringScheduler.class.getName());
+
+    /**
+     * A heap entry; stale once the rule is rescheduled to another date or dropped.
+     *
+     * @param rec_id  the recurring transaction ID.
+     * @param nextDue the date of the first unposted occurrence, in epoch days.
+     */
+    private record Entry(int rec_id, int nextDue) {
+    }
+
+    private final SqlManager dbConn;
+    private final WriteBehindQueue writeQueue;
+    private final RecurringCatchUp catchUp;
+
+    // Guards every field below
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(
+            (a, b) -> Integer.compare(a.nextDue(), b.nextDue()));
+    // Current next due date per recurring transaction ID, used to skip stale heap entries
+    private final Map<Integer, Integer> scheduled = new HashMap<>();
+    // Recurring transactions to re-read from the database before their next due date is trusted
+    private Set<Integer> dirty = new LinkedHashSet<>();
+    private Thread thread;
+    private boolean running;
+    private RuntimeException failure;
+
+    /**
+     * Creates an idle scheduler; {@link #start()} loads the recurring transactions and starts posting.
+     *
+     * @param dbConn     the database manager performing the writes.
+     * @param writeQueue the queue whose pending edits are written before posting.
+     */
+    protected RecurringScheduler(SqlManager dbConn, WriteBehindQueue writeQueue) {
+        this.dbConn = dbConn;
+        this.writeQueue = writeQueue;
+        this.catchUp = new RecurringCatchUp(dbConn);
+    }
+
+    /**
+     * Catches up every recurring transaction, builds the heap of next due dates and starts the
+     * scheduler thread. Does nothing if the scheduler is already running.
+     *
+     * @throws RuntimeException if the catch-up fails; the scheduler is then left stopped.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (running) return;
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+
+        List<RecurringTransactionRow> rules;
+        LocalDate today = LocalDate.now();
+        try {
+            writeQueue.flush();
+            rules = dbConn.getRecurringTransactions();
+            catchUp.catchUp(rules, today);
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, "Failed to catch up recurring transactions", e);
+            lock.lock();
+            try {
+                running = false;
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            for (RecurringTransactionRow rule : rules) {
+                schedule(rule.id(), RecurringCatchUp.firstOccurrenceFrom(rule, today));
+            }
+            thread = new Thread(this::run, "recurring-scheduler");
+            thread.setDaemon(true);
+            thread.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a recurring transaction as added, edited or deleted. The scheduler thread re-reads it,
+     * posts anything it now owes and moves it to its new place in the heap.
+     *
+     * @param rec_id the recurring transaction ID.
+     */
+    public void reschedule(int rec_id) {
+        lock.lock();
+        try {
+            dirty.add(rec_id);
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the scheduler thread, waiting for a posting in progress to finish.
+     * Failures were already logged as they happened; the first one is rethrown here as well.
+     *
+     * @throws RuntimeException if an attempt to post due transactions failed.
+     */
+    @Override
+    public void close() {
+        Thread stopping;
+        lock.lock();
+        try {
+            running = false;
+            stopping = thread;
+            thread = null;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (stopping != null) {
+            try {
+                stopping.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        lock.lock();
+        try {
+            RuntimeException e = failure;
+            failure = null;
+            if (e != null) throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loop of the scheduler thread: sleeps until a rule is due or marked dirty, then posts it.
+     */
+    private void run() {
+        while (true) {
+            Set<Integer> work;
+            lock.lock();
+            try {
+                awaitWork();
+                if (!running) return;
+                work = dirty;
+                dirty = new LinkedHashSet<>();
+                int today = (int) LocalDate.now().toEpochDay();
+                while (!heap.isEmpty() && heap.peek().nextDue() < today) {
+                    Entry entry = heap.poll();
+                    if (scheduled.getOrDefault(entry.rec_id(), Integer.MIN_VALUE) == entry.nextDue()) {
+                        scheduled.remove(entry.rec_id());
+                        work.add(entry.rec_id());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (!work.isEmpty()) post(work);
+        }
+    }
+
+    /**
+     * Waits until the scheduler is stopped, a rule is marked dirty or the earliest rule is due.
+     * Must hold {@link #lock}.
+     */
+    private void awaitWork() {
+        try {
+            while (running && dirty.isEmpty()) {
+                dropStaleHead();
+                if (heap.isEmpty()) {
+                    wakeUp.await();
+                    continue;
+                }
+                // The earliest occurrence becomes due at the start of the following day
+                ZonedDateTime dueAt = LocalDate.ofEpochDay(heap.peek().nextDue() + 1L)
+                        .atStartOfDay(ZoneId.systemDefault());
+                long nanos = Duration.between(ZonedDateTime.now(), dueAt).toNanos();
+                if (nanos <= 0) return;
+                wakeUp.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            running = false;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Discards heap entries that no longer match the rule's scheduled date. Must hold {@link #lock}.
+     */
+    private void dropStaleHead() {
+        while (!heap.isEmpty()) {
+            Entry head = heap.peek();
+            if (scheduled.getOrDefault(head.rec_id(), Integer.MIN_VALUE) == head.nextDue()) return;
+            heap.poll();
+        }
+    }
+
+    /**
+     * Posts everything the given recurring transactions owe and schedules their next occurrence.
+     * Queued edits are written first so postings use the latest rate and amount.
+     *
+     * @param rec_ids the recurring transaction IDs to process.
+     */
+    private void post(Set<Integer> rec_ids) {
+        try {
+            writeQueue.flush();
+            List<RecurringTransactionRow> rules = dbConn.getRecurringTransactionsById(
+                    rec_ids.stream().mapToInt(Integer::intValue).toArray());
+            LocalDate today = LocalDate.now();
+            catchUp.catchUp(rules, today);
+
+            Set<Integer> missing = new HashSet<>(rec_ids);
+            lock.lock();
+            try {
+                for (RecurringTransactionRow rule : rules) {
+                    missing.remove(rule.id());
+                    schedule(rule.id(), RecurringCatchUp.firstOccurrenceFrom(rule, today));
+                }
+                // Deleted recurring transactions are simply no longer scheduled
+                missing.forEach(scheduled::remove);
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, "Failed to post recurring transactions " + rec_ids
+                    + "; retrying in " + RETRY_DELAY_SECONDS + " s", e);
+            lock.lock();
+            try {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+                dirty.addAll(rec_ids);
+                // Rules marked dirty meanwhile wait for the retry too, so a failing database is not hammered;
+                // only stopping the scheduler ends the back-off early
+                long nanos = TimeUnit.SECONDS.toNanos(RETRY_DELAY_SECONDS);
+                while (running && nanos > 0) {
+                    nanos = wakeUp.awaitNanos(nanos);
+                }
+            } catch (InterruptedException ie) {
+                running = false;
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Places a recurring transaction in the heap at its next due date. Must hold {@link #lock}.
+     *
+     * @param rec_id  the recurring transaction ID.
+     * @param nextDue the date of its first unposted occurrence.
+     */
+    private void schedule(int rec_id, LocalDate nextDue) {
+        int day = (int) nextDue.toEpochDay();
+        scheduled.put(rec_id, day);
+        heap.add(new Entry(rec_id, day));
+    }
+}
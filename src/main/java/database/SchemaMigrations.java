@@ -0,0 +1,487 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered schema migrations for the finance database.
+ * The version of the schema is tracked in SQLite's {@code PRAGMA user_version}; at startup every
+ * migration newer than that version is applied in order, each in its own transaction together with
+ * the version bump, so a failed migration leaves the database at the previous version.
+ */
+final class SchemaMigrations {
+
+    /**
+     * A single schema change.
+     *
+     * @param version     the schema version reached once the migration is applied.
+     * @param description a short summary of the change.
+     * @param statements  the SQL statements making up the change, run in order.
+     */
+    record Migration(int version, String description, List<String> statements) {
+    }
+
+    /**
+     * Statements recomputing {@code monthly_summary} from scratch out of {@code user_transaction}.
+     * Declared before {@link #MIGRATIONS}, which uses it for the initial fill.
+     */
+    static final List<String> REBUILD_MONTHLY_SUMMARY = List.of(
+            "DELETE FROM monthly_summary;",
+            "INSERT INTO monthly_summary (acc_id, year_month, type, total, count)\n"
+                    + "SELECT acc_id, " + yearMonth("date") + ", type, SUM(amount), COUNT(*)\n"
+                    + "FROM user_transaction\n"
+                    + "GROUP BY 1, 2, 3;"
+    );
+
+    /**
+     * All migrations, ordered by version. New migrations are appended with the next version number;
+     * released migrations are never edited.
+     */
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create base tables", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS account(
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        balance REAL NOT NULL,
+                        name TEXT NOT NULL,
+                        card TEXT,
+                        bank TEXT
+                    );""",
+                    """
+                    CREATE TABLE IF NOT EXISTS recurring_transaction(
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        acc_id INTEGER REFERENCES account(id),
+                        start_date REAL NOT NULL,
+                        name TEXT NOT NULL,
+                        type TEXT NOT NULL,
+                        recurring_rate TEXT NOT NULL,
+                        amount REAL NOT NULL,
+                        last_time_transacted REAL
+                    );""",
+                    """
+                    CREATE TABLE IF NOT EXISTS user_transaction(
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        acc_id INTEGER REFERENCES account(id),
+                        date REAL NOT NULL,
+                        name TEXT,
+                        type TEXT,
+                        amount REAL NOT NULL,
+                        recurring BOOLEAN
+                    );"""
+            )),
+            new Migration(2, "Index transactions by account and date, recurring transactions by account", List.of(
+                    "CREATE INDEX IF NOT EXISTS user_transaction_acc_date ON user_transaction(acc_id, date);",
+                    "CREATE INDEX IF NOT EXISTS recurring_transaction_acc ON recurring_transaction(acc_id);"
+            )),
+            new Migration(3, "Store money as INTEGER cents", concat(
+                    rebuildTable("account", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    balance INTEGER NOT NULL,
+                                    name TEXT NOT NULL,
+                                    card TEXT,
+                                    bank TEXT""",
+                            "id, balance, name, card, bank",
+                            "id, CAST(ROUND(balance * 100) AS INTEGER), name, card, bank"),
+                    rebuildTable("recurring_transaction", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    acc_id INTEGER REFERENCES account(id),
+                                    start_date REAL NOT NULL,
+                                    name TEXT NOT NULL,
+                                    type TEXT NOT NULL,
+                                    recurring_rate TEXT NOT NULL,
+                                    amount INTEGER NOT NULL,
+                                    last_time_transacted REAL""",
+                            "id, acc_id, start_date, name, type, recurring_rate, amount, last_time_transacted",
+                            "id, acc_id, start_date, name, type, recurring_rate, CAST(ROUND(amount * 100) AS INTEGER), last_time_transacted"),
+                    rebuildTable("user_transaction", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    acc_id INTEGER REFERENCES account(id),
+                                    date REAL NOT NULL,
+                                    name TEXT,
+                                    type TEXT,
+                                    amount INTEGER NOT NULL,
+                                    recurring BOOLEAN""",
+                            "id, acc_id, date, name, type, amount, recurring",
+                            "id, acc_id, date, name, type, CAST(ROUND(amount * 100) AS INTEGER), recurring"),
+                    List.of(
+                            "CREATE INDEX IF NOT EXISTS user_transaction_acc_date ON user_transaction(acc_id, date);",
+                            "CREATE INDEX IF NOT EXISTS recurring_transaction_acc ON recurring_transaction(acc_id);"
+                    )
+            )),
+            new Migration(4, "Store dates as INTEGER epoch days", concat(
+                    rebuildTable("recurring_transaction", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    acc_id INTEGER REFERENCES account(id),
+                                    start_date INTEGER NOT NULL,
+                                    name TEXT NOT NULL,
+                                    type TEXT NOT NULL,
+                                    recurring_rate TEXT NOT NULL,
+                                    amount INTEGER NOT NULL,
+                                    last_time_transacted INTEGER""",
+                            "id, acc_id, start_date, name, type, recurring_rate, amount, last_time_transacted",
+                            "id, acc_id, " + epochDay("start_date") + ", name, type, recurring_rate, amount, "
+                                    + epochDay("last_time_transacted")),
+                    rebuildTable("user_transaction", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    acc_id INTEGER REFERENCES account(id),
+                                    date INTEGER NOT NULL,
+                                    name TEXT,
+                                    type TEXT,
+                                    amount INTEGER NOT NULL,
+                                    recurring BOOLEAN""",
+                            "id, acc_id, date, name, type, amount, recurring",
+                            "id, acc_id, " + epochDay("date") + ", name, type, amount, recurring"),
+                    List.of(
+                            "CREATE INDEX IF NOT EXISTS user_transaction_acc_date ON user_transaction(acc_id, date);",
+                            "CREATE INDEX IF NOT EXISTS recurring_transaction_acc ON recurring_transaction(acc_id);"
+                    )
+            )),
+            new Migration(5, "Maintain per-month totals in monthly_summary", concat(
+                    List.of(
+                            """
+                            CREATE TABLE IF NOT EXISTS monthly_summary(
+                                acc_id INTEGER NOT NULL,
+                                year_month INTEGER NOT NULL,
+                                type TEXT NOT NULL,
+                                total INTEGER NOT NULL,
+                                count INTEGER NOT NULL,
+                                PRIMARY KEY (acc_id, year_month, type)
+                            ) WITHOUT ROWID;""",
+                            """
+                            CREATE TRIGGER IF NOT EXISTS user_transaction_summary_insert
+                            AFTER INSERT ON user_transaction
+                            BEGIN
+                            """ + addToSummary("NEW") + """
+                            END;""",
+                            """
+                            CREATE TRIGGER IF NOT EXISTS user_transaction_summary_delete
+                            AFTER DELETE ON user_transaction
+                            BEGIN
+                            """ + removeFromSummary("OLD") + """
+                            END;""",
+                            """
+                            CREATE TRIGGER IF NOT EXISTS user_transaction_summary_update
+                            AFTER UPDATE OF acc_id, date, type, amount ON user_transaction
+                            BEGIN
+                            """ + removeFromSummary("OLD") + addToSummary("NEW") + """
+                            END;"""
+                    ),
+                    REBUILD_MONTHLY_SUMMARY
+            )),
+            new Migration(6, "Link recurring postings to their recurring transaction, one per date", List.of(
+                    "ALTER TABLE user_transaction ADD COLUMN rec_id INTEGER;",
+                    """
+                    CREATE UNIQUE INDEX IF NOT EXISTS user_transaction_rec_date
+                    ON user_transaction(rec_id, date) WHERE rec_id IS NOT NULL;"""
+            )),
+            new Migration(7, "Cascade account deletes through foreign keys and remove orphaned rows", concat(
+                    List.of(
+                            "DELETE FROM user_transaction WHERE acc_id IS NULL OR acc_id NOT IN (SELECT id FROM account);",
+                            "DELETE FROM recurring_transaction WHERE acc_id IS NULL OR acc_id NOT IN (SELECT id FROM account);",
+                            "UPDATE user_transaction SET rec_id = NULL WHERE rec_id NOT IN (SELECT id FROM recurring_transaction);",
+                            "DELETE FROM monthly_summary WHERE acc_id NOT IN (SELECT id FROM account);"
+                    ),
+                    rebuildTable("recurring_transaction", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    acc_id INTEGER NOT NULL REFERENCES account(id) ON DELETE CASCADE,
+                                    start_date INTEGER NOT NULL,
+                                    name TEXT NOT NULL,
+                                    type TEXT NOT NULL,
+                                    recurring_rate TEXT NOT NULL,
+                                    amount INTEGER NOT NULL,
+                                    last_time_transacted INTEGER""",
+                            "id, acc_id, start_date, name, type, recurring_rate, amount, last_time_transacted",
+                            "id, acc_id, start_date, name, type, recurring_rate, amount, last_time_transacted"),
+                    rebuildTable("user_transaction", """
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    acc_id INTEGER NOT NULL REFERENCES account(id) ON DELETE CASCADE,
+                                    date INTEGER NOT NULL,
+                                    name TEXT,
+                                    type TEXT,
+                                    amount INTEGER NOT NULL,
+                                    recurring BOOLEAN,
+                                    rec_id INTEGER REFERENCES recurring_transaction(id) ON DELETE SET NULL""",
+                            "id, acc_id, date, name, type, amount, recurring, rec_id",
+                            "id, acc_id, date, name, type, amount, recurring, rec_id"),
+                    rebuildTable("monthly_summary", """
+                                    acc_id INTEGER NOT NULL REFERENCES account(id) ON DELETE CASCADE,
+                                    year_month INTEGER NOT NULL,
+                                    type TEXT NOT NULL,
+                                    total INTEGER NOT NULL,
+                                    count INTEGER NOT NULL,
+                                    PRIMARY KEY (acc_id, year_month, type)""",
+                            "WITHOUT ROWID",
+                            "acc_id, year_month, type, total, count",
+                            "acc_id, year_month, type, total, count"),
+                    List.of(
+                            "CREATE INDEX IF NOT EXISTS user_transaction_acc_date ON user_transaction(acc_id, date);",
+                            """
+                            CREATE UNIQUE INDEX IF NOT EXISTS user_transaction_rec_date
+                            ON user_transaction(rec_id, date) WHERE rec_id IS NOT NULL;""",
+                            "CREATE INDEX IF NOT EXISTS recurring_transaction_acc ON recurring_transaction(acc_id);",
+                            """
+                            CREATE TRIGGER IF NOT EXISTS user_transaction_summary_insert
+                            AFTER INSERT ON user_transaction
+                            BEGIN
+                            """ + addToSummary("NEW") + """
+                            END;""",
+                            // Rows removed by an account delete skip the summary, which the same delete cascades to
+                            """
+                            CREATE TRIGGER IF NOT EXISTS user_transaction_summary_delete
+                            AFTER DELETE ON user_transaction
+                            WHEN EXISTS (SELECT 1 FROM account WHERE id = OLD.acc_id)
+                            BEGIN
+                            """ + removeFromSummary("OLD") + """
+                            END;""",
+                            """
+                            CREATE TRIGGER IF NOT EXISTS user_transaction_summary_update
+                            AFTER UPDATE OF acc_id, date, type, amount ON user_transaction
+                            BEGIN
+                            """ + removeFromSummary("OLD") + addToSummary("NEW") + """
+                            END;"""
+                    )
+            )),
+            new Migration(8, "Index transaction names for full-text search in transaction_fts", List.of(
+                    // External content table: only the index is stored, names are read from user_transaction
+                    """
+                    CREATE VIRTUAL TABLE IF NOT EXISTS transaction_fts USING fts5(
+                        name,
+                        content = 'user_transaction',
+                        content_rowid = 'id',
+                        tokenize = 'unicode61 remove_diacritics 2',
+                        prefix = '2 3'
+                    );""",
+                    "INSERT INTO transaction_fts(transaction_fts) VALUES ('rebuild');",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS user_transaction_fts_insert
+                    AFTER INSERT ON user_transaction
+                    BEGIN
+                    INSERT INTO transaction_fts(rowid, name) VALUES (NEW.id, NEW.name);
+                    END;""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS user_transaction_fts_delete
+                    AFTER DELETE ON user_transaction
+                    BEGIN
+                    INSERT INTO transaction_fts(transaction_fts, rowid, name) VALUES ('delete', OLD.id, OLD.name);
+                    END;""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS user_transaction_fts_update
+                    AFTER UPDATE OF name ON user_transaction
+                    BEGIN
+                    INSERT INTO transaction_fts(transaction_fts, rowid, name) VALUES ('delete', OLD.id, OLD.name);
+                    INSERT INTO transaction_fts(rowid, name) VALUES (NEW.id, NEW.name);
+                    END;"""
+            )),
+            // Every index ends with the rowid, so this one is ordered by (date, id) like a page of all accounts
+            new Migration(9, "Index transactions by date for paging across all accounts", List.of(
+                    "CREATE INDEX IF NOT EXISTS user_transaction_date ON user_transaction(date);"
+            )),
+            // Postings made before version 6 carry only recurring = 1. They were written with the name and type of
+            // their recurring transaction, on or after its start date, which identifies the rule unless the account
+            // has two such rules. Ambiguous rows and extra copies of one date stay unlinked, because the unique
+            // (rec_id, date) index allows a single posting per rule and date
+            new Migration(10, "Link postings made before rec_id existed to their recurring transaction", List.of(
+                    """
+                    UPDATE user_transaction AS t
+                    SET rec_id = (SELECT r.id FROM recurring_transaction r
+                                  WHERE r.acc_id = t.acc_id AND r.name = t.name AND r.type = t.type
+                                  AND r.start_date <= t.date)
+                    WHERE t.recurring = 1 AND t.rec_id IS NULL
+                    AND (SELECT COUNT(*) FROM recurring_transaction r
+                         WHERE r.acc_id = t.acc_id AND r.name = t.name AND r.type = t.type
+                         AND r.start_date <= t.date) = 1
+                    AND t.id = (SELECT MIN(d.id) FROM user_transaction d
+                                WHERE d.recurring = 1 AND d.acc_id = t.acc_id AND d.name = t.name
+                                AND d.type = t.type AND d.date = t.date)
+                    AND NOT EXISTS (SELECT 1 FROM user_transaction p
+                                    JOIN recurring_transaction r ON r.id = p.rec_id
+                                    WHERE r.acc_id = t.acc_id AND r.name = t.name AND r.type = t.type
+                                    AND p.date = t.date);"""
+            ))
+    );
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Builds the statements that recreate a table with a new definition, since SQLite cannot change
+     * the type of an existing column. Rows are copied into a new table, the old table is dropped and
+     * the new one takes its name. The AUTOINCREMENT sequence is carried over so IDs are never reused.
+     * Indexes of the old table are dropped with it and have to be created again by the migration.
+     *
+     * @param table      the name of the table to rebuild.
+     * @param definition the column definitions of the new table.
+     * @param columns    the columns of the new table filled from the old one.
+     * @param select     the expressions computing {@code columns} from the old table's rows.
+     * @return the statements performing the rebuild.
+     */
+    private static List<String> rebuildTable(String table, String definition, String columns, String select) {
+        return rebuildTable(table, definition, "", columns, select);
+    }
+
+    /**
+     * Builds the statements that recreate a table with a new definition and table options,
+     * such as {@code WITHOUT ROWID}. See {@link #rebuildTable(String, String, String, String)}.
+     *
+     * @param table      the name of the table to rebuild.
+     * @param definition the column definitions of the new table.
+     * @param options    the table options following the column definitions, or an empty string.
+     * @param columns    the columns of the new table filled from the old one.
+     * @param select     the expressions computing {@code columns} from the old table's rows.
+     * @return the statements performing the rebuild.
+     */
+    private static List<String> rebuildTable(String table, String definition, String options, String columns, String select) {
+        String rebuilt = table + "_rebuilt";
+        return List.of(
+                "CREATE TABLE " + rebuilt + "(\n" + definition + "\n) " + options + ";",
+                "INSERT INTO " + rebuilt + " (" + columns + ") SELECT " + select + " FROM " + table + ";",
+                "UPDATE sqlite_sequence SET seq = (SELECT seq FROM sqlite_sequence WHERE name = '" + table + "')"
+                        + " WHERE name = '" + rebuilt + "';",
+                "DROP TABLE " + table + ";",
+                "ALTER TABLE " + rebuilt + " RENAME TO " + table + ";"
+        );
+    }
+
+    /**
+     * Builds the expression converting an epoch day to its month, encoded as {@code year * 100 + month}.
+     *
+     * @param epochDay the expression holding the epoch day.
+     * @return the SQL expression computing the month, e.g. 202405 for May 2024.
+     */
+    static String yearMonth(String epochDay) {
+        return "CAST(strftime('%Y%m', " + epochDay + " * 86400, 'unixepoch') AS INTEGER)";
+    }
+
+    /**
+     * Builds the trigger statements adding a transaction row to its month's totals.
+     *
+     * @param row the trigger's row alias, {@code NEW} or {@code OLD}.
+     * @return the statements, each terminated by a semicolon.
+     */
+    private static String addToSummary(String row) {
+        return "INSERT INTO monthly_summary (acc_id, year_month, type, total, count)\n"
+                + "VALUES (" + row + ".acc_id, " + yearMonth(row + ".date") + ", " + row + ".type, "
+                + row + ".amount, 1)\n"
+                + "ON CONFLICT (acc_id, year_month, type) DO UPDATE SET total = total + excluded.total, count = count + 1;\n";
+    }
+
+    /**
+     * Builds the trigger statements removing a transaction row from its month's totals,
+     * dropping the month once no transaction is left in it.
+     *
+     * @param row the trigger's row alias, {@code NEW} or {@code OLD}.
+     * @return the statements, each terminated by a semicolon.
+     */
+    private static String removeFromSummary(String row) {
+        String key = "acc_id = " + row + ".acc_id AND year_month = " + yearMonth(row + ".date")
+                + " AND type = " + row + ".type";
+        return "UPDATE monthly_summary SET total = total - " + row + ".amount, count = count - 1 WHERE " + key + ";\n"
+                + "DELETE FROM monthly_summary WHERE " + key + " AND count = 0;\n";
+    }
+
+    /**
+     * Builds the expression converting a column of Unix timestamps (in seconds) to epoch days.
+     * Integer division in SQLite truncates toward zero, so days before 1970 are corrected to round down.
+     * NULL stays NULL.
+     *
+     * @param column the column holding the timestamps.
+     * @return the SQL expression computing the epoch day.
+     */
+    private static String epochDay(String column) {
+        String seconds = "CAST(" + column + " AS INTEGER)";
+        return "(" + seconds + " / 86400 - (" + seconds + " % 86400 < 0))";
+    }
+
+    /**
+     * Joins several lists of statements into one, keeping their order.
+     *
+     * @param parts the statement lists to join.
+     * @return all statements in order.
+     */
+    @SafeVarargs
+    private static List<String> concat(List<String>... parts) {
+        List<String> statements = new ArrayList<>();
+        for (List<String> part : parts) {
+            statements.addAll(part);
+        }
+        return List.copyOf(statements);
+    }
+
+    /**
+     * Brings the database up to the latest schema version.
+     *
+     * @param pool the pool whose writer connection applies the migrations.
+     * @throws SQLException if reading the version or applying a migration fails.
+     */
+    static void migrate(ConnectionPool pool) throws SQLException {
+        int current = pool.write(SchemaMigrations::version);
+        if (current >= MIGRATIONS.get(MIGRATIONS.size() - 1).version()) return;
+
+        // Table rebuilds drop and rename referenced tables, which enforced foreign keys would turn into
+        // cascading deletes. The pragma is ignored inside a transaction, so it is switched around them.
+        setForeignKeys(pool, false);
+        try {
+            applyFrom(pool, current);
+        } finally {
+            setForeignKeys(pool, true);
+        }
+    }
+
+    /**
+     * Applies every migration newer than a version, each in its own transaction.
+     *
+     * @param pool    the pool whose writer connection applies the migrations.
+     * @param current the schema version of the database.
+     * @throws SQLException if applying a migration fails.
+     */
+    private static void applyFrom(ConnectionPool pool, int current) throws SQLException {
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) continue;
+
+            pool.transaction(statements -> {
+                try (Statement st = statements.connection().createStatement()) {
+                    for (String sql : migration.statements()) {
+                        st.executeUpdate(sql);
+                    }
+                    st.executeUpdate("PRAGMA user_version = " + migration.version() + ";");
+                } catch (SQLException e) {
+                    throw new SQLException("Failed to apply migration " + migration.version()
+                            + " (" + migration.description() + ")", e);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Reads the schema version recorded in the database.
+     *
+     * @param statements the statement cache of the connection to read through.
+     * @return the current {@code user_version}, 0 for a database never migrated.
+     * @throws SQLException if the pragma cannot be read.
+     */
+    private static int version(StatementCache statements) throws SQLException {
+        try (Statement st = statements.connection().createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA user_version;")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Turns foreign key enforcement on or off for the writer connection.
+     *
+     * @param pool    the pool whose writer connection is configured.
+     * @param enabled whether foreign keys are enforced.
+     * @throws SQLException if the pragma cannot be set.
+     */
+    private static void setForeignKeys(ConnectionPool pool, boolean enabled) throws SQLException {
+        pool.write(statements -> {
+            try (Statement st = statements.connection().createStatement()) {
+                return st.executeUpdate("PRAGMA foreign_keys = " + (enabled ? "ON" : "OFF") + ";");
+            }
+        });
+    }
+}
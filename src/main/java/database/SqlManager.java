@@ -3,20 +3,29 @@ package database;
 import database.enums.RecurringRate;
 import database.enums.TransactionType;
 import database.records.AccountRow;
+import database.records.MonthlySummaryRow;
+import database.records.PayeeTotalRow;
 import database.records.RecurringTransactionRow;
 import database.records.TableToRecordAPI;
+import database.records.TransactionKey;
 import database.records.TransactionRow;
+import database.records.TransactionSink;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.sql.*;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Manages SQLite database interactions for a personal finance management system.
@@ -30,69 +39,85 @@ public class SqlManager implements Closeable {
      */
     public static final SqlManager DB_CONNECTION = new SqlManager();
 
-    private final Connection conn;
+    /**
+     * System property overriding the JDBC url of the database.
+     */
+    public static final String URL_PROPERTY = "finance.db.url";
+
+    /**
+     * System property overriding the number of read-only connections in the pool.
+     */
+    public static final String POOL_SIZE_PROPERTY = "finance.db.poolSize";
+
+    private static final String DEFAULT_URL = "jdbc:sqlite:C:\\JavaProjects\\PersonalFinanceManager\\src\\main\\resources\\finance.db";
+    private static final int DEFAULT_POOL_SIZE = 4;
+
+    // Single column updates, kept as constants so their compiled statements are reused
+    private static final String UPDATE_ACCOUNT_NAME = "UPDATE account SET name = ? WHERE id = ?;";
+    private static final String UPDATE_ACCOUNT_CARD = "UPDATE account SET card = ? WHERE id = ?;";
+    private static final String UPDATE_ACCOUNT_BANK = "UPDATE account SET bank = ? WHERE id = ?;";
+    private static final String UPDATE_TRANSACTION_NAME = "UPDATE user_transaction SET name = ? WHERE id = ?;";
+    private static final String UPDATE_TRANSACTION_TYPE = "UPDATE user_transaction SET type = ? WHERE id = ?;";
+    private static final String UPDATE_RECURRING_NAME = "UPDATE recurring_transaction SET name = ? WHERE id = ?;";
+    private static final String UPDATE_RECURRING_TYPE = "UPDATE recurring_transaction SET type = ? WHERE id = ?;";
+    private static final String UPDATE_RECURRING_RATE = "UPDATE recurring_transaction SET recurring_rate = ? WHERE id = ?;";
+    private static final String UPDATE_ACCOUNT_BALANCE = "UPDATE account SET balance = balance + ? WHERE id = ?;";
+
+    private final ConnectionPool pool;
+    private final RecurringCatchUp catchUp = new RecurringCatchUp(this);
 
     /**
-     * Establishes a connection to the database and initializes tables.
+     * Establishes a connection pool to the database configured through {@link #URL_PROPERTY}
+     * and {@link #POOL_SIZE_PROPERTY} and initializes tables.
      * Throws a RuntimeException if the connection fails.
      */
     protected SqlManager() {
+        this(System.getProperty(URL_PROPERTY, DEFAULT_URL),
+                Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE));
+    }
+
+    /**
+     * Establishes a connection pool to the given database and initializes tables.
+     * Throws a RuntimeException if the connection fails.
+     *
+     * @param url      The JDBC url of the SQLite database.
+     * @param poolSize The number of read-only connections kept open next to the single writer.
+     */
+    protected SqlManager(String url, int poolSize) {
         try {
-            conn = DriverManager.getConnection("jdbc:sqlite:C:\\JavaProjects\\PersonalFinanceManager\\src\\main\\resources\\finance.db");
-            createTables();
+            pool = new ConnectionPool(url, poolSize);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to connect to database", e);
         }
+        createTables();
     }
 
     /**
-     * Creates necessary database tables if they do not already exist.
+     * Creates necessary database tables and indexes by applying every pending schema migration.
      * Tables include `account`, `recurring_transaction`, and `user_transaction`.
+     *
+     * @see SchemaMigrations
      */
     public void createTables() {
-        String tables = """
-            CREATE TABLE IF NOT EXISTS account(
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                balance REAL NOT NULL,
-                name TEXT NOT NULL,
-                card TEXT,
-                bank TEXT
-            );
-            CREATE TABLE IF NOT EXISTS recurring_transaction(
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                acc_id INTEGER REFERENCES account(id),
-                start_date REAL NOT NULL,
-                name TEXT NOT NULL,
-                type TEXT NOT NULL,
-                recurring_rate TEXT NOT NULL,
-                amount REAL NOT NULL,
-                last_time_transacted REAL
-            );
-            CREATE TABLE IF NOT EXISTS user_transaction(
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                acc_id INTEGER REFERENCES account(id),
-                date REAL NOT NULL,
-                name TEXT,
-                type TEXT,
-                amount REAL NOT NULL,
-                recurring BOOLEAN
-            );""";
-        try (PreparedStatement ps = conn.prepareStatement(tables)) {
-            ps.execute();
+        try {
+            SchemaMigrations.migrate(pool);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create tables", e);
         }
     }
 
     /**
-     * Retrieves all accounts from the database.
+     * Retrieves all accounts from the database, ordered by ID.
      *
      * @return A list of {@link AccountRow} objects representing the accounts.
      */
     public List<AccountRow> getAccounts() {
-        String sql = "SELECT * FROM account;";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            return TableToRecordAPI.toAccounts(ps.executeQuery());
+        String sql = "SELECT * FROM account ORDER BY id;";
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                return TableToRecordAPI.toAccounts(ps.executeQuery());
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to retrieve accounts", e);
         }
@@ -105,38 +130,368 @@ public class SqlManager implements Closeable {
      */
     public AccountRow getAccount(int acc_id) {
         String sql = "SELECT * FROM account WHERE id = ?;";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, acc_id);
-            return TableToRecordAPI.toAccounts(ps.executeQuery()).get(0);
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setInt(1, acc_id);
+                return TableToRecordAPI.toAccounts(ps.executeQuery()).get(0);
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to retrieve accounts", e);
         }
     }
 
     /**
-     * Retrieves all transactions for specific account IDs.
+     * Retrieves the balance an account will have once the edits in a write-behind queue are written, without
+     * waiting for them. The stored balance is read while no write can commit, so each queued change is counted
+     * exactly once; at most a commit already in progress is waited for.
+     *
+     * @param acc_id The account ID.
+     * @param queue  The queue whose pending balance changes are added.
+     * @return The balance, in cents.
+     */
+    public long getBalance(int acc_id, WriteBehindQueue queue) {
+        String sql = "SELECT balance FROM account WHERE id = ?;";
+        try {
+            return pool.exclusive(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setInt(1, acc_id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) throw new SQLException("No account with ID " + acc_id);
+                    return rs.getLong("balance") + queue.pendingBalanceChange(acc_id);
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to retrieve balance of account with ID: " + acc_id, e);
+        }
+    }
+
+    /**
+     * Retrieves all transactions for specific account IDs, ordered by account, date and ID.
      *
      * @param acc_ids The account IDs to filter transactions by.
      * @return A list of {@link TransactionRow} objects representing the transactions.
      */
     public List<TransactionRow> getTransactions(int... acc_ids) {
+        String query = transactionsQuery(acc_ids);
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                bindIds(ps, 1, acc_ids);
+                return TableToRecordAPI.toTransactions(ps.executeQuery());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to retrieve transactions", e);
+        }
+    }
+
+    /**
+     * Streams all transactions for specific account IDs, mapping rows lazily as the stream is consumed.
+     * A pooled connection is held until the stream is closed, so callers must close it, typically with
+     * try-with-resources. Memory use stays constant however many rows are read.
+     *
+     * @param acc_ids The account IDs to filter transactions by, or none for all accounts.
+     * @return A stream of {@link TransactionRow} objects that must be closed after use.
+     */
+    public Stream<TransactionRow> streamTransactions(int... acc_ids) {
+        String query = transactionsQuery(acc_ids);
+        return stream("Failed to stream transactions", statements -> {
+            PreparedStatement ps = statements.prepare(query);
+            bindIds(ps, 1, acc_ids);
+            return TableToRecordAPI.streamTransactions(ps.executeQuery());
+        });
+    }
+
+    /**
+     * Streams the transactions of one type matching optional filters, in no particular order, so SQLite
+     * reads them straight off the table without sorting. Like {@link #streamTransactions(int...)}, the
+     * stream holds a pooled connection and must be closed. Filters left {@code null} or empty are not applied.
+     *
+     * @param type    The type of the transactions.
+     * @param acc_ids The account IDs to filter transactions by, or an empty array for all accounts.
+     * @param from    The first date to include, or {@code null} for no lower bound.
+     * @param to      The last date to include, or {@code null} for no upper bound.
+     * @return A stream of {@link TransactionRow} objects that must be closed after use.
+     */
+    public Stream<TransactionRow> streamTransactions(TransactionType type, int[] acc_ids, LocalDate from, LocalDate to) {
+        String query = "SELECT * FROM user_transaction" + typeFilter(acc_ids, from, to) + ";";
+        return stream("Failed to stream transactions", statements -> {
+            PreparedStatement ps = statements.prepare(query);
+            bindTypeFilter(ps, type, acc_ids, from, to);
+            return TableToRecordAPI.streamTransactions(ps.executeQuery());
+        });
+    }
+
+    /**
+     * Streams the total of the transactions of one type for every name, in no particular order.
+     * Names are summed in SQL, so only one row per name crosses into Java. Like
+     * {@link #streamTransactions(int...)}, the stream holds a pooled connection and must be closed.
+     * Filters left {@code null} or empty are not applied.
+     *
+     * @param type    The type of the transactions.
+     * @param acc_ids The account IDs to filter transactions by, or an empty array for all accounts.
+     * @param from    The first date to include, or {@code null} for no lower bound.
+     * @param to      The last date to include, or {@code null} for no upper bound.
+     * @return A stream of {@link PayeeTotalRow} objects that must be closed after use.
+     */
+    public Stream<PayeeTotalRow> streamPayeeTotals(TransactionType type, int[] acc_ids, LocalDate from, LocalDate to) {
+        String query = "SELECT name, SUM(amount) AS total, COUNT(*) AS count FROM user_transaction"
+                + typeFilter(acc_ids, from, to) + " GROUP BY name;";
+        return stream("Failed to stream payee totals", statements -> {
+            PreparedStatement ps = statements.prepare(query);
+            bindTypeFilter(ps, type, acc_ids, from, to);
+            return TableToRecordAPI.streamPayeeTotals(ps.executeQuery());
+        });
+    }
+
+    /**
+     * Builds the WHERE clause selecting transactions of one type with optional account and date filters.
+     * Only the predicates in use are added, keeping each shape of the query a cacheable statement.
+     *
+     * @return The SQL text, bound by {@link #bindTypeFilter}.
+     */
+    private static String typeFilter(int[] acc_ids, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder(" WHERE type = ?");
+        if (acc_ids.length > 0) sql.append(" AND acc_id IN (").append(placeholders(acc_ids.length)).append(')');
+        if (from != null) sql.append(" AND date >= ?");
+        if (to != null) sql.append(" AND date <= ?");
+        return sql.toString();
+    }
+
+    /**
+     * Binds the parameters of a clause built by {@link #typeFilter}, starting at the first parameter.
+     */
+    private static void bindTypeFilter(PreparedStatement ps, TransactionType type, int[] acc_ids,
+                                       LocalDate from, LocalDate to) throws SQLException {
+        int index = 1;
+        ps.setString(index++, type.toString());
+        bindIds(ps, index, acc_ids);
+        index += acc_ids.length;
+        if (from != null) ps.setLong(index++, from.toEpochDay());
+        if (to != null) ps.setLong(index, to.toEpochDay());
+    }
+
+    /**
+     * Opens a stream of rows on a pooled reader connection, which is held until the stream is closed.
+     *
+     * @param failure The message of the exception thrown if the stream cannot be opened.
+     * @param open    The work preparing the query and streaming its rows.
+     * @return The stream, releasing the connection when closed.
+     */
+    private <T> Stream<T> stream(String failure, ConnectionPool.SqlWork<Stream<T>> open) {
+        StatementCache statements;
+        try {
+            statements = pool.acquireReader();
+        } catch (SQLException e) {
+            throw new RuntimeException(failure, e);
+        }
+        try {
+            return open.apply(statements).onClose(() -> pool.releaseReader(statements));
+        } catch (SQLException | RuntimeException e) {
+            pool.releaseReader(statements);
+            throw new RuntimeException(failure, e);
+        }
+    }
+
+    /**
+     * Runs an action for every transaction of specific account IDs as rows are read,
+     * without collecting them into a list.
+     *
+     * @param action  The action to run for each transaction.
+     * @param acc_ids The account IDs to filter transactions by, or none for all accounts.
+     */
+    public void forEachTransaction(Consumer<TransactionRow> action, int... acc_ids) {
+        String query = transactionsQuery(acc_ids);
+        try {
+            pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                bindIds(ps, 1, acc_ids);
+                TableToRecordAPI.forEachTransaction(ps.executeQuery(), action);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to retrieve transactions", e);
+        }
+    }
+
+    /**
+     * Bulk loads the numeric columns of every transaction of specific account IDs into {@code sink},
+     * ordered by account and date, without creating a record per row.
+     *
+     * @param sink    The receiver of each transaction's columns.
+     * @param acc_ids The account IDs to filter transactions by, or none for all accounts.
+     */
+    public void loadTransactions(TransactionSink sink, int... acc_ids) {
+        String query = acc_ids.length > 0
+                ? "SELECT id, acc_id, date, type, amount FROM user_transaction WHERE acc_id IN ("
+                        + placeholders(acc_ids.length) + ") ORDER BY acc_id, date;"
+                : "SELECT id, acc_id, date, type, amount FROM user_transaction ORDER BY acc_id, date;";
+        try {
+            pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                bindIds(ps, 1, acc_ids);
+                TableToRecordAPI.loadTransactions(ps.executeQuery(), sink);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load transactions", e);
+        }
+    }
 
+    /**
+     * Builds the query selecting every transaction of specific account IDs.
+     *
+     * @param acc_ids The account IDs to filter transactions by, or none for all accounts.
+     * @return The SQL text, with one parameter per account ID.
+     */
+    static String transactionsQuery(int[] acc_ids) {
         // Builds SQL command so that we have set functionality
         // Wish to use ANY() but SQLite fail to have that behavior
-        StringBuilder sql = new StringBuilder("SELECT * FROM user_transaction WHERE acc_id IN (");
-        for (int i = 0; i < acc_ids.length; i++) {
-            sql.append(acc_ids[i]);
-            if (i < acc_ids.length - 1) sql.append(", ");
-        }
-        sql.append(");");
+        // Ordered along the (acc_id, date) index, so rows can be routed to their accounts in one pass
+        return acc_ids.length > 0
+                ? "SELECT * FROM user_transaction WHERE acc_id IN (" + placeholders(acc_ids.length) + ") ORDER BY acc_id, date, id;"
+                : "SELECT * FROM user_transaction ORDER BY acc_id, date, id;";
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(acc_ids.length > 0 ? sql.toString() : "SELECT * FROM user_transaction")) {
-            return TableToRecordAPI.toTransactions(ps.executeQuery());
+    /**
+     * Retrieves one page of transactions for specific account IDs, ordered by date and then ID.
+     * Filtering and paging happen in SQL: pages are found by seeking past the last row of the previous
+     * page on the (date, id) key instead of skipping rows with OFFSET, so every page costs the same
+     * no matter how deep into the history it is. A page of one account reads the (acc_id, date) index and
+     * a page of all accounts the (date) index, both already in page order. Several accounts are paged one
+     * by one and merged, since a single {@code IN} query would sort every matching row for each page.
+     *
+     * @param acc_ids  The account IDs to filter transactions by, or an empty array for all accounts.
+     * @param from     The first date to include, or {@code null} for no lower bound.
+     * @param to       The last date to include, or {@code null} for no upper bound.
+     * @param afterKey The key of the last row of the previous page, or {@code null} for the first page.
+     * @param limit    The maximum number of rows to return, at least 1.
+     * @return A list of at most {@code limit} {@link TransactionRow} objects.
+     * @throws IllegalArgumentException if {@code limit} is less than 1.
+     */
+    public List<TransactionRow> getTransactions(int[] acc_ids, LocalDate from, LocalDate to, TransactionKey afterKey, int limit) {
+        // SQLite reads a negative LIMIT as no limit at all, which would load the whole history into one page
+        if (limit < 1) throw new IllegalArgumentException("Page needs room for at least one row, got " + limit);
+        String query = transactionPageQuery(acc_ids.length > 0, from != null, to != null, afterKey != null);
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                if (acc_ids.length <= 1) {
+                    bindTransactionPage(ps, acc_ids.length == 1 ? acc_ids[0] : null, from, to, afterKey, limit);
+                    return TableToRecordAPI.toTransactions(ps.executeQuery());
+                }
+
+                // Every account contributes at most one page; the first rows of their union make the page
+                List<TransactionRow> rows = new ArrayList<>();
+                for (int acc_id : Arrays.stream(acc_ids).distinct().toArray()) {
+                    bindTransactionPage(ps, acc_id, from, to, afterKey, limit);
+                    rows.addAll(TableToRecordAPI.toTransactions(ps.executeQuery()));
+                }
+                rows.sort(Comparator.comparingInt(TransactionRow::date).thenComparingInt(TransactionRow::id));
+                return new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to retrieve transactions", e);
         }
     }
 
+    /**
+     * Builds the query retrieving one page of transactions, of one account or of all of them.
+     * Only the predicates in use are added, keeping each shape of the query a cacheable statement.
+     *
+     * @param byAccount   Whether the page is restricted to one account.
+     * @param hasFrom     Whether a first date is bound.
+     * @param hasTo       Whether a last date is bound.
+     * @param hasAfterKey Whether the page continues after the key of a previous page.
+     * @return The SQL text, bound by {@link #bindTransactionPage}.
+     */
+    static String transactionPageQuery(boolean byAccount, boolean hasFrom, boolean hasTo, boolean hasAfterKey) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM user_transaction WHERE 1");
+        if (byAccount) sql.append(" AND acc_id = ?");
+        if (hasFrom) sql.append(" AND date >= ?");
+        if (hasTo) sql.append(" AND date <= ?");
+        if (hasAfterKey) sql.append(" AND (date, id) > (?, ?)");
+        return sql.append(" ORDER BY date, id LIMIT ?;").toString();
+    }
+
+    /**
+     * Binds the parameters of a query built by {@link #transactionPageQuery}, leaving out those not in use.
+     */
+    private static void bindTransactionPage(PreparedStatement ps, Integer acc_id, LocalDate from, LocalDate to,
+                                            TransactionKey afterKey, int limit) throws SQLException {
+        int index = 1;
+        if (acc_id != null) ps.setInt(index++, acc_id);
+        if (from != null) ps.setLong(index++, from.toEpochDay());
+        if (to != null) ps.setLong(index++, to.toEpochDay());
+        if (afterKey != null) {
+            ps.setInt(index++, afterKey.date());
+            ps.setInt(index++, afterKey.id());
+        }
+        ps.setInt(index, limit);
+    }
+
+    /**
+     * Searches transactions by name through the {@code transaction_fts} full-text index, best matches first.
+     * Every word of {@code text} must appear in the name, each matched as a prefix so partial input
+     * already finds results; ranking is FTS5's bm25. Filters left {@code null} or empty are not applied.
+     *
+     * @param text    The words to search for, as typed by the user.
+     * @param acc_ids The account IDs to search, or none for all accounts.
+     * @param from    The earliest date to include, or {@code null}.
+     * @param to      The latest date to include, or {@code null}.
+     * @param limit   The maximum number of results.
+     * @param offset  The number of best results to skip, for paging.
+     * @return The matching transactions, best match first; empty if {@code text} has no words.
+     */
+    public List<TransactionRow> searchTransactions(String text, int[] acc_ids, LocalDate from, LocalDate to, int limit, int offset) {
+        String match = ftsQuery(text);
+        if (match == null) return new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder("""
+                SELECT t.* FROM transaction_fts f
+                JOIN user_transaction t ON t.id = f.rowid
+                WHERE transaction_fts MATCH ?""");
+        if (acc_ids.length > 0) sql.append(" AND t.acc_id IN (").append(placeholders(acc_ids.length)).append(')');
+        if (from != null) sql.append(" AND t.date >= ?");
+        if (to != null) sql.append(" AND t.date <= ?");
+        sql.append(" ORDER BY f.rank LIMIT ? OFFSET ?;");
+
+        String query = sql.toString();
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                int index = 1;
+                ps.setString(index++, match);
+                bindIds(ps, index, acc_ids);
+                index += acc_ids.length;
+                if (from != null) ps.setLong(index++, from.toEpochDay());
+                if (to != null) ps.setLong(index++, to.toEpochDay());
+                ps.setInt(index++, limit);
+                ps.setInt(index, offset);
+                return TableToRecordAPI.toTransactions(ps.executeQuery());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to search transactions", e);
+        }
+    }
+
+    /**
+     * Turns user input into an FTS5 query matching every word as a prefix. Each word is quoted so
+     * characters with a meaning in FTS5 syntax (quotes, operators, parentheses) are searched literally.
+     *
+     * @param text The words as typed by the user.
+     * @return The FTS5 query, or {@code null} if the text has no words.
+     */
+    private static String ftsQuery(String text) {
+        StringBuilder match = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            if (word.isEmpty()) continue;
+            if (!match.isEmpty()) match.append(' ');
+            match.append('"').append(word.replace("\"", "\"\"")).append("\"*");
+        }
+        return match.isEmpty() ? null : match.toString();
+    }
+
     /**
      * Retrieves a single transaction by its ID.
      *
@@ -145,50 +500,150 @@ public class SqlManager implements Closeable {
      */
     public TransactionRow getTransaction(int tran_id) {
         String sql = "SELECT * FROM user_transaction WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, tran_id);
-            return TableToRecordAPI.toTransactions(ps.executeQuery()).get(0);
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setInt(1, tran_id);
+                return TableToRecordAPI.toTransactions(ps.executeQuery()).get(0);
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to retrieve transaction with ID: " + tran_id, e);
         }
     }
 
     /**
-     * Retrieves all recurring transactions for specific account IDs.
+     * Retrieves all recurring transactions for specific account IDs, ordered by account, start date and ID.
      *
      * @param acc_ids The account IDs to filter recurring transactions by.
      * @return A list of {@link RecurringTransactionRow} objects.
      */
     public List<RecurringTransactionRow> getRecurringTransactions(int... acc_ids) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM recurring_transaction WHERE acc_id IN (");
-        for (int i = 0; i < acc_ids.length; i++) {
-            sql.append(acc_ids[i]);
-            if (i < acc_ids.length - 1) sql.append(", ");
+        String query = recurringTransactionsQuery(acc_ids);
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                bindIds(ps, 1, acc_ids);
+                return TableToRecordAPI.toRecurringTransactions(ps.executeQuery());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to retrieve recurring transactions", e);
         }
-        sql.append(");");
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(acc_ids.length > 0 ? sql.toString() : "SELECT * FROM recurring_transaction")) {
-            return TableToRecordAPI.toRecurringTransactions(ps.executeQuery());
+    /**
+     * Builds the query selecting every recurring transaction of specific account IDs.
+     *
+     * @param acc_ids The account IDs to filter recurring transactions by, or none for all accounts.
+     * @return The SQL text, with one parameter per account ID.
+     */
+    static String recurringTransactionsQuery(int[] acc_ids) {
+        return acc_ids.length > 0
+                ? "SELECT * FROM recurring_transaction WHERE acc_id IN (" + placeholders(acc_ids.length) + ") ORDER BY acc_id, start_date, id;"
+                : "SELECT * FROM recurring_transaction ORDER BY acc_id, start_date, id;";
+    }
+
+    /**
+     * Retrieves the recurring transactions with specific IDs. IDs that do not exist are skipped.
+     *
+     * @param rec_ids The recurring transaction IDs to retrieve.
+     * @return A list of {@link RecurringTransactionRow} objects.
+     */
+    public List<RecurringTransactionRow> getRecurringTransactionsById(int... rec_ids) {
+        if (rec_ids.length == 0) return new ArrayList<>();
+        String query = "SELECT * FROM recurring_transaction WHERE id IN (" + placeholders(rec_ids.length) + ");";
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                bindIds(ps, 1, rec_ids);
+                return TableToRecordAPI.toRecurringTransactions(ps.executeQuery());
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to retrieve recurring transactions", e);
         }
     }
 
+    /**
+     * Builds a comma separated list of {@code count} parameter markers for an IN clause.
+     * Only the number of ids changes the SQL text, so the statement stays cacheable.
+     *
+     * @param count The number of markers.
+     * @return The markers, e.g. {@code "?, ?, ?"}.
+     */
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Binds ids to consecutive parameters of a statement.
+     *
+     * @param ps    The statement to bind.
+     * @param first The index of the first parameter to bind.
+     * @param ids   The ids to bind.
+     * @throws SQLException if a parameter cannot be bound.
+     */
+    private static void bindIds(PreparedStatement ps, int first, int[] ids) throws SQLException {
+        for (int i = 0; i < ids.length; i++) {
+            ps.setInt(first + i, ids[i]);
+        }
+    }
+
+    /**
+     * Retrieves the per-month transaction totals for specific account IDs, ordered by account and month.
+     * The totals are maintained by triggers in the same commit as every insert, update and delete of a
+     * transaction, so reading them never scans `user_transaction`.
+     *
+     * @param acc_ids The account IDs to filter by, or none for all accounts.
+     * @return A list of {@link MonthlySummaryRow} objects, one per account, month and transaction type.
+     */
+    public List<MonthlySummaryRow> getMonthlySummaries(int... acc_ids) {
+        String query = acc_ids.length > 0
+                ? "SELECT * FROM monthly_summary WHERE acc_id IN (" + placeholders(acc_ids.length) + ") ORDER BY acc_id, year_month;"
+                : "SELECT * FROM monthly_summary ORDER BY acc_id, year_month;";
+        try {
+            return pool.read(statements -> {
+                PreparedStatement ps = statements.prepare(query);
+                bindIds(ps, 1, acc_ids);
+                return TableToRecordAPI.toMonthlySummaries(ps.executeQuery());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to retrieve monthly summaries", e);
+        }
+    }
+
+    /**
+     * Recomputes every per-month transaction total from scratch in a single commit.
+     * Only needed when the totals may have drifted, e.g. after `user_transaction` was edited
+     * with the triggers disabled.
+     */
+    public void rebuildMonthlySummaries() {
+        try {
+            pool.transaction(statements -> {
+                for (String sql : SchemaMigrations.REBUILD_MONTHLY_SUMMARY) {
+                    statements.prepare(sql).executeUpdate();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to rebuild monthly summaries", e);
+        }
+    }
+
     /**
      * Updates a single column in a table for a specific record ID.
      *
      * @param id       The ID of the record to update.
      * @param newValue The new value to set for the column.
-     * @param column   The column name to update.
+     * @param sql      The UPDATE statement, binding the new value first and the record ID second.
      * @param table    The table name containing the record.
      */
-    private void updateTableInfo(int id, String newValue, String column, String table) {
-        String sql = String.format("UPDATE %s SET %s = ? WHERE id = ?", table, column);
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, newValue);
-            ps.setInt(2, id);
-            ps.execute();
+    private void updateTableInfo(int id, String newValue, String sql, String table) {
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setString(1, newValue);
+                ps.setInt(2, id);
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update record in " + table, e);
         }
@@ -198,40 +653,67 @@ public class SqlManager implements Closeable {
      * Updates the balance of an account based on a transaction.
      *
      * @param acc_id The account ID to update.
-     * @param amount The amount to add or subtract.
+     * @param amount The amount to add or subtract, in cents.
      * @param type   The type of transaction (DEPOSIT or WITHDRAW).
      */
-    private void updateAccountBalance(int acc_id, float amount, TransactionType type) {
-        String sql = String.format("""
-                UPDATE account
-                SET balance = balance %s ?
-                WHERE id = ?;
-                """, type == TransactionType.DEPOSIT ? "+" : "-");
+    private void updateAccountBalance(int acc_id, long amount, TransactionType type) {
+        adjustAccountBalance(acc_id, signedAmount(amount, type));
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setFloat(1, amount);
-            ps.setInt(2, acc_id);
-            ps.execute();
+    /**
+     * Adds a signed delta to the balance of an account.
+     *
+     * @param acc_id The account ID to update.
+     * @param delta  The amount in cents to add, negative to subtract.
+     */
+    private void adjustAccountBalance(int acc_id, long delta) {
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(UPDATE_ACCOUNT_BALANCE);
+                ps.setLong(1, delta);
+                ps.setInt(2, acc_id);
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update account balance", e);
         }
     }
 
     /**
-     * Updates the last transaction time for a recurring transaction.
+     * Computes the effect a transaction has on its account's balance.
+     *
+     * @param amount The transaction amount, in cents.
+     * @param type   The type of transaction (DEPOSIT or WITHDRAW).
+     * @return The amount for deposits, or its negation for withdrawals.
+     */
+    private static long signedAmount(long amount, TransactionType type) {
+        return type == TransactionType.DEPOSIT ? amount : -amount;
+    }
+
+    /**
+     * Advances the last transaction time of many recurring transactions as one JDBC batch.
+     * A time is never moved backwards, so overlapping catch-ups can finish in any order.
      *
-     * @param rec_id               The recurring transaction ID to update.
-     * @param lastTimeTransacted   The new last transaction date.
+     * @param lastPosted The new last transaction date per recurring transaction ID, in epoch days.
      */
-    private void updateLastTimeTransacted(int rec_id, LocalDate lastTimeTransacted) {
-        double epoch = lastTimeTransacted.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
-        String sql = "UPDATE recurring_transaction SET last_time_transacted = ? WHERE id = ?;";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, epoch);
-            ps.setInt(2, rec_id);
-            ps.execute();
+    void setLastTimesTransacted(Map<Integer, Integer> lastPosted) {
+        if (lastPosted.isEmpty()) return;
+        String sql = """
+                UPDATE recurring_transaction
+                SET last_time_transacted = MAX(COALESCE(last_time_transacted, ?1), ?1)
+                WHERE id = ?2;""";
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                for (Map.Entry<Integer, Integer> entry : lastPosted.entrySet()) {
+                    ps.setInt(1, entry.getValue());
+                    ps.setInt(2, entry.getKey());
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to update last transaction time for recurring transaction", e);
+            throw new RuntimeException("Failed to update last transaction time for recurring transactions", e);
         }
     }
 
@@ -242,7 +724,7 @@ public class SqlManager implements Closeable {
      * @param newValue The new name to set.
      */
     public void setAccountName(int acc_id, String newValue) {
-        updateTableInfo(acc_id, newValue, "name", "account");
+        updateTableInfo(acc_id, newValue, UPDATE_ACCOUNT_NAME, "account");
     }
 
     /**
@@ -252,7 +734,7 @@ public class SqlManager implements Closeable {
      * @param newValue The new card number to set.
      */
     public void setAccountCard(int acc_id, String newValue) {
-        updateTableInfo(acc_id, newValue, "card", "account");
+        updateTableInfo(acc_id, newValue, UPDATE_ACCOUNT_CARD, "account");
     }
 
     /**
@@ -262,7 +744,7 @@ public class SqlManager implements Closeable {
      * @param newValue The new bank name to set.
      */
     public void setAccountBank(int acc_id, String newValue) {
-        updateTableInfo(acc_id, newValue, "bank", "account");
+        updateTableInfo(acc_id, newValue, UPDATE_ACCOUNT_BANK, "account");
     }
 
     /**
@@ -272,7 +754,7 @@ public class SqlManager implements Closeable {
      * @param newValue The new name to set.
      */
     public void setTransactionName(int tran_id, String newValue) {
-        updateTableInfo(tran_id, newValue, "name", "user_transaction");
+        updateTableInfo(tran_id, newValue, UPDATE_TRANSACTION_NAME, "user_transaction");
     }
 
     /**
@@ -282,7 +764,15 @@ public class SqlManager implements Closeable {
      * @param newValue The new transaction type to set.
      */
     public void setTransactionType(int tran_id, String newValue) {
-        updateTableInfo(tran_id, newValue, "type", "user_transaction");
+        TransactionType newType = newValue.equals("withdraw") ? TransactionType.WITHDRAW : TransactionType.DEPOSIT;
+        inTransaction(tx -> {
+            TransactionRow transaction = getTransaction(tran_id);
+            updateTableInfo(tran_id, newValue, UPDATE_TRANSACTION_TYPE, "user_transaction");
+
+            // Swap the old type's impact on the balance for the new one
+            adjustAccountBalance(transaction.acc_id(),
+                    signedAmount(transaction.amount(), newType) - signedAmount(transaction.amount(), transaction.type()));
+        });
     }
 
     /**
@@ -292,7 +782,7 @@ public class SqlManager implements Closeable {
      * @param newValue The new name to set.
      */
     public void setRecurringTransactionName(int rec_id, String newValue) {
-        updateTableInfo(rec_id, newValue, "name", "recurring_transaction");
+        updateTableInfo(rec_id, newValue, UPDATE_RECURRING_NAME, "recurring_transaction");
     }
 
     /**
@@ -302,7 +792,7 @@ public class SqlManager implements Closeable {
      * @param newValue The new transaction type to set.
      */
     public void setRecurringTransactionType(int rec_id, String newValue) {
-        updateTableInfo(rec_id, newValue, "type", "recurring_transaction");
+        updateTableInfo(rec_id, newValue, UPDATE_RECURRING_TYPE, "recurring_transaction");
     }
 
     /**
@@ -312,36 +802,33 @@ public class SqlManager implements Closeable {
      * @param newValue The new recurring rate to set.
      */
     public void setRecurringTransactionRate(int rec_id, String newValue) {
-        updateTableInfo(rec_id, newValue, "recurring_rate", "recurring_transaction");
+        updateTableInfo(rec_id, newValue, UPDATE_RECURRING_RATE, "recurring_transaction");
     }
 
     /**
      * Updates the amount of a specific transaction and adjusts the account balance accordingly.
      *
      * @param tran_id   The transaction ID.
-     * @param newAmount The new transaction amount.
+     * @param newAmount The new transaction amount, in cents.
      */
-    public void setTransactionAmount(int tran_id, float newAmount) {
-        // Retrieve the current transaction details
-        TransactionRow transaction = getTransaction(tran_id);
-
-        // Determine the opposite transaction type for balance adjustment
-        TransactionType opposite = transaction.type() == TransactionType.DEPOSIT
-                ? TransactionType.WITHDRAW
-                : TransactionType.DEPOSIT;
-
-        // Reverse the old transaction amount
-        updateAccountBalance(transaction.acc_id(), transaction.amount(), opposite);
-
-        // Apply the new transaction amount
-        updateAccountBalance(transaction.acc_id(), newAmount, transaction.type());
-
-        // Update the transaction amount in the database
+    public void setTransactionAmount(int tran_id, long newAmount) {
         String sql = "UPDATE user_transaction SET amount = ? WHERE id = ?;";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setFloat(1, newAmount);
-            ps.setInt(2, tran_id);
-            ps.execute();
+        try {
+            pool.transaction(statements -> {
+                // Retrieve the current transaction details
+                TransactionRow transaction = getTransaction(tran_id);
+
+                // Update the transaction amount in the database
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setLong(1, newAmount);
+                ps.setInt(2, tran_id);
+                ps.executeUpdate();
+
+                // Replace the old amount's impact on the balance with the new one
+                adjustAccountBalance(transaction.acc_id(),
+                        signedAmount(newAmount, transaction.type()) - signedAmount(transaction.amount(), transaction.type()));
+                return null;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update transaction amount", e);
         }
@@ -354,19 +841,19 @@ public class SqlManager implements Closeable {
      * @param date    The new date to set for the transaction.
      */
     public void setTransactionDate(int tran_id, LocalDate date) {
-        // Convert the LocalDate to epoch time (seconds since 1970-01-01) for database storage
-        double epoch = date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
-
         // SQL query to update the transaction date
         String sql = "UPDATE user_transaction SET date = ? WHERE id = ?;";
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            // Bind the epoch date and transaction ID to the prepared statement
-            ps.setDouble(1, epoch); // Set the date as epoch time
-            ps.setInt(2, tran_id);  // Set the transaction ID
-
-            // Execute the update statement
-            ps.execute();
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                // Bind the epoch day and transaction ID to the prepared statement
+                ps.setLong(1, date.toEpochDay()); // Set the date as days since 1970-01-01
+                ps.setInt(2, tran_id);  // Set the transaction ID
+
+                // Execute the update statement
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             // Handle SQL errors by throwing a runtime exception with a meaningful message
             throw new RuntimeException("Failed to set transaction date for ID: " + tran_id, e);
@@ -378,19 +865,194 @@ public class SqlManager implements Closeable {
      * Updates the amount of a specific recurring transaction.
      *
      * @param rec_id    The recurring transaction ID.
-     * @param newAmount The new amount for the recurring transaction.
+     * @param newAmount The new amount for the recurring transaction, in cents.
      */
-    public void setRecurringTransactionAmount(int rec_id, float newAmount) {
+    public void setRecurringTransactionAmount(int rec_id, long newAmount) {
         String sql = "UPDATE recurring_transaction SET amount = ? WHERE id = ?;";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setFloat(1, newAmount);
-            ps.setInt(2, rec_id);
-            ps.execute();
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setLong(1, newAmount);
+                ps.setInt(2, rec_id);
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update recurring transaction amount", e);
         }
     }
 
+    /**
+     * Applies several column changes to one transaction with a single UPDATE and adjusts the account
+     * balance for any change of amount or type, all in one commit. A {@code null} argument leaves its
+     * column unchanged. Nothing happens if the transaction no longer exists.
+     *
+     * @param tran_id The transaction ID.
+     * @param date    The new date, or {@code null}.
+     * @param name    The new name, or {@code null}.
+     * @param type    The new transaction type, or {@code null}.
+     * @param amount  The new amount in cents, or {@code null}.
+     */
+    public void updateTransaction(int tran_id, LocalDate date, String name, TransactionType type, Long amount) {
+        String select = "SELECT * FROM user_transaction WHERE id = ?;";
+        String update = """
+                UPDATE user_transaction
+                SET date = COALESCE(?, date), name = COALESCE(?, name), type = COALESCE(?, type), amount = COALESCE(?, amount)
+                WHERE id = ?;""";
+        try {
+            pool.transaction(statements -> {
+                PreparedStatement read = statements.prepare(select);
+                read.setInt(1, tran_id);
+                List<TransactionRow> found = TableToRecordAPI.toTransactions(read.executeQuery());
+                if (found.isEmpty()) return null;
+                TransactionRow old = found.get(0);
+
+                PreparedStatement ps = statements.prepare(update);
+                ps.setObject(1, date == null ? null : date.toEpochDay());
+                ps.setString(2, name);
+                ps.setString(3, type == null ? null : type.toString());
+                ps.setObject(4, amount);
+                ps.setInt(5, tran_id);
+                ps.executeUpdate();
+
+                // Replace the old row's impact on the balance with the new one
+                long newAmount = amount == null ? old.amount() : amount;
+                TransactionType newType = type == null ? old.type() : type;
+                long delta = signedAmount(newAmount, newType) - signedAmount(old.amount(), old.type());
+                if (delta != 0) adjustAccountBalance(old.acc_id(), delta);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update transaction with ID: " + tran_id, e);
+        }
+    }
+
+    /**
+     * Applies several column changes to one account with a single UPDATE.
+     * A {@code null} argument leaves its column unchanged.
+     *
+     * @param acc_id The account ID.
+     * @param name   The new name, or {@code null}.
+     * @param card   The new card number, or {@code null}.
+     * @param bank   The new bank name, or {@code null}.
+     */
+    public void updateAccount(int acc_id, String name, String card, String bank) {
+        String sql = """
+                UPDATE account
+                SET name = COALESCE(?, name), card = COALESCE(?, card), bank = COALESCE(?, bank)
+                WHERE id = ?;""";
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setString(1, name);
+                ps.setString(2, card);
+                ps.setString(3, bank);
+                ps.setInt(4, acc_id);
+                return ps.executeUpdate();
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update account with ID: " + acc_id, e);
+        }
+    }
+
+    /**
+     * Applies several column changes to one recurring transaction with a single UPDATE.
+     * A {@code null} argument leaves its column unchanged.
+     *
+     * @param rec_id The recurring transaction ID.
+     * @param name   The new name, or {@code null}.
+     * @param type   The new transaction type, or {@code null}.
+     * @param rate   The new recurring rate, or {@code null}.
+     * @param amount The new amount in cents, or {@code null}.
+     */
+    public void updateRecurringTransaction(int rec_id, String name, TransactionType type, RecurringRate rate, Long amount) {
+        String sql = """
+                UPDATE recurring_transaction
+                SET name = COALESCE(?, name), type = COALESCE(?, type), recurring_rate = COALESCE(?, recurring_rate),
+                    amount = COALESCE(?, amount)
+                WHERE id = ?;""";
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setString(1, name);
+                ps.setString(2, type == null ? null : type.toString());
+                ps.setString(3, rate == null ? null : rate.toString());
+                ps.setObject(4, amount);
+                ps.setInt(5, rec_id);
+                return ps.executeUpdate();
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update recurring transaction with ID: " + rec_id, e);
+        }
+    }
+
+    /**
+     * Applies a change of a recurring transaction's type or amount to every transaction it posted on or
+     * after a given date. The postings are rewritten with one set-based UPDATE over the (rec_id, date)
+     * index and each account receives one balance adjustment, computed in SQL before the rows change,
+     * all in one commit. A {@code null} argument leaves its column unchanged.
+     *
+     * @param rec_id The recurring transaction ID.
+     * @param from   The date of the first posting to change.
+     * @param type   The new transaction type, or {@code null}.
+     * @param amount The new amount in cents, or {@code null}.
+     * @return The number of postings changed.
+     */
+    public int updateRecurringPostings(int rec_id, LocalDate from, TransactionType type, Long amount) {
+        String deltas = """
+                SELECT acc_id, SUM(
+                    CASE COALESCE(?1, type) WHEN 'deposit' THEN COALESCE(?2, amount) ELSE -COALESCE(?2, amount) END
+                    - CASE type WHEN 'deposit' THEN amount ELSE -amount END) AS delta
+                FROM user_transaction
+                WHERE rec_id = ?3 AND date >= ?4
+                GROUP BY acc_id;""";
+        String update = """
+                UPDATE user_transaction
+                SET type = COALESCE(?1, type), amount = COALESCE(?2, amount)
+                WHERE rec_id = ?3 AND date >= ?4;""";
+        try {
+            return pool.transaction(statements -> {
+                PreparedStatement read = statements.prepare(deltas);
+                bindRecurringChange(read, rec_id, from, type, amount);
+                PreparedStatement balance = statements.prepare(UPDATE_ACCOUNT_BALANCE);
+                try (ResultSet rs = read.executeQuery()) {
+                    while (rs.next()) {
+                        long delta = rs.getLong("delta");
+                        if (delta == 0) continue;
+                        balance.setLong(1, delta);
+                        balance.setInt(2, rs.getInt("acc_id"));
+                        balance.addBatch();
+                    }
+                }
+
+                PreparedStatement ps = statements.prepare(update);
+                bindRecurringChange(ps, rec_id, from, type, amount);
+                int changed = ps.executeUpdate();
+                balance.executeBatch();
+                return changed;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update postings of recurring transaction with ID: " + rec_id, e);
+        }
+    }
+
+    /**
+     * Binds the four numbered parameters shared by the statements of {@link #updateRecurringPostings}.
+     *
+     * @param ps     The statement.
+     * @param rec_id The recurring transaction ID.
+     * @param from   The date of the first posting to change.
+     * @param type   The new transaction type, or {@code null}.
+     * @param amount The new amount in cents, or {@code null}.
+     * @throws SQLException if a parameter cannot be bound.
+     */
+    private static void bindRecurringChange(PreparedStatement ps, int rec_id, LocalDate from, TransactionType type, Long amount)
+            throws SQLException {
+        ps.setString(1, type == null ? null : type.toString());
+        ps.setObject(2, amount);
+        ps.setInt(3, rec_id);
+        ps.setLong(4, from.toEpochDay());
+    }
+
     /**
      * Adds a new account to the database.
      *
@@ -404,16 +1066,20 @@ public class SqlManager implements Closeable {
                 INSERT INTO account (balance, name, card, bank)
                 VALUES (?, ?, ?, ?)
                 RETURNING id;""";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setFloat(1, 0); // Initial balance is zero
-            ps.setString(2, name);
-            ps.setString(3, card);
-            ps.setString(4, bank);
-            ps.execute();
-
-            ResultSet rs = ps.getResultSet();
-            rs.next();
-            return rs.getInt("id");
+        try {
+            return pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setLong(1, 0); // Initial balance is zero
+                ps.setString(2, name);
+                ps.setString(3, card);
+                ps.setString(4, bank);
+                ps.execute();
+
+                try (ResultSet rs = ps.getResultSet()) {
+                    rs.next();
+                    return rs.getInt("id");
+                }
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to insert new account", e);
         }
@@ -426,57 +1092,175 @@ public class SqlManager implements Closeable {
      * @param date     The transaction date.
      * @param name     The transaction name.
      * @param type     The transaction type (DEPOSIT or WITHDRAW).
-     * @param amount   The transaction amount.
+     * @param amount   The transaction amount, in cents.
      * @param recurring Indicates if the transaction is part of a recurring transaction.
      * @return The ID of the newly created transaction.
      */
-    public int addTransaction(int acc_id, LocalDate date, String name, TransactionType type, float amount, boolean recurring) {
-        double epoch = date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
-
+    public int addTransaction(int acc_id, LocalDate date, String name, TransactionType type, long amount, boolean recurring) {
         String sql = """
                 INSERT INTO user_transaction (acc_id, date, name, type, amount, recurring)
                 VALUES (?, ?, ?, ?, ?, ?)
                 RETURNING id;""";
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, acc_id);
-            ps.setDouble(2, epoch);
-            ps.setString(3, name);
-            ps.setString(4, type.toString());
-            ps.setFloat(5, amount);
-            ps.setBoolean(6, recurring);
+        try {
+            return pool.transaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setInt(1, acc_id);
+                ps.setLong(2, date.toEpochDay());
+                ps.setString(3, name);
+                ps.setString(4, type.toString());
+                ps.setLong(5, amount);
+                ps.setBoolean(6, recurring);
+
+                ps.execute();
+                int trans_id;
+                try (ResultSet rs = ps.getResultSet()) {
+                    rs.next();
+                    trans_id = rs.getInt("id");
+                }
+
+                // Update account balance
+                updateAccountBalance(acc_id, amount, type);
+                return trans_id;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to insert new transaction", e);
+        }
+    }
+
+    /**
+     * Adds many user transactions at once and updates the balance of every affected account.
+     * All rows are inserted through one compiled statement inside a single SQLite transaction, so the
+     * whole set costs one commit, and each account receives one summed balance adjustment instead of
+     * one per row. Each insert reads its own ID back with {@code RETURNING id}.
+     *
+     * @param rows The transactions to add; their IDs are ignored.
+     * @return The IDs of the newly created transactions, in the iteration order of {@code rows}.
+     */
+    public int[] addTransactions(Collection<TransactionRow> rows) {
+        if (rows.isEmpty()) return new int[0];
 
-            ps.execute();
-            ResultSet rs = ps.getResultSet();
-            rs.next();
-            int trans_id = rs.getInt("id");
+        String sql = """
+                INSERT INTO user_transaction (acc_id, date, name, type, amount, recurring, rec_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                RETURNING id;""";
 
-            // Update account balance
-            updateAccountBalance(acc_id, amount, type);
-            return trans_id;
+        try {
+            return pool.transaction(statements -> {
+                // Sum of the balance changes, per account ID
+                Map<Integer, Long> deltas = new HashMap<>();
+                int[] ids = new int[rows.size()];
+                int i = 0;
+
+                PreparedStatement ps = statements.prepare(sql);
+                for (TransactionRow row : rows) {
+                    bindTransaction(ps, row);
+                    ps.execute();
+                    try (ResultSet rs = ps.getResultSet()) {
+                        rs.next();
+                        ids[i++] = rs.getInt("id");
+                    }
+
+                    deltas.merge(row.acc_id(), signedAmount(row.amount(), row.type()), Long::sum);
+                }
+
+                PreparedStatement balance = statements.prepare(UPDATE_ACCOUNT_BALANCE);
+                for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+                    balance.setLong(1, delta.getValue());
+                    balance.setInt(2, delta.getKey());
+                    balance.addBatch();
+                }
+                balance.executeBatch();
+                return ids;
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to insert new transaction", e);
+            throw new RuntimeException("Failed to insert transactions", e);
+        }
+    }
+
+    /**
+     * Posts occurrences of recurring transactions, skipping any occurrence that was already posted.
+     * Rows are inserted as one JDBC batch with {@code ON CONFLICT DO NOTHING} against the unique
+     * (rec_id, date) index, so the call can be retried or run concurrently without a duplicate check per
+     * row. Only rows actually inserted count toward the one balance adjustment each account receives.
+     *
+     * @param rows The postings to add; their IDs are ignored and each must carry its {@code rec_id}.
+     * @return The number of postings inserted.
+     */
+    public int addRecurringPostings(Collection<TransactionRow> rows) {
+        if (rows.isEmpty()) return 0;
+
+        String sql = """
+                INSERT INTO user_transaction (acc_id, date, name, type, amount, recurring, rec_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT DO NOTHING;""";
+
+        try {
+            return pool.transaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                for (TransactionRow row : rows) {
+                    bindTransaction(ps, row);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+
+                // Sum of the balance changes of the inserted rows, per account ID
+                Map<Integer, Long> deltas = new HashMap<>();
+                int inserted = 0;
+                int i = 0;
+                for (TransactionRow row : rows) {
+                    if (counts[i++] > 0) {
+                        inserted++;
+                        deltas.merge(row.acc_id(), signedAmount(row.amount(), row.type()), Long::sum);
+                    }
+                }
+
+                PreparedStatement balance = statements.prepare(UPDATE_ACCOUNT_BALANCE);
+                for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+                    balance.setLong(1, delta.getValue());
+                    balance.setInt(2, delta.getKey());
+                    balance.addBatch();
+                }
+                balance.executeBatch();
+                return inserted;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to insert recurring postings", e);
         }
     }
 
+    /**
+     * Binds the columns of a transaction to the seven parameters of an INSERT into user_transaction.
+     *
+     * @param ps  The INSERT statement.
+     * @param row The transaction to bind.
+     * @throws SQLException if a parameter cannot be bound.
+     */
+    private static void bindTransaction(PreparedStatement ps, TransactionRow row) throws SQLException {
+        ps.setInt(1, row.acc_id());
+        ps.setInt(2, row.date());
+        ps.setString(3, row.name());
+        ps.setString(4, row.type().toString());
+        ps.setLong(5, row.amount());
+        ps.setBoolean(6, row.recurring());
+        if (row.rec_id() == TransactionRow.NO_RECURRING_TRANSACTION) ps.setNull(7, Types.INTEGER);
+        else ps.setInt(7, row.rec_id());
+    }
+
     /**
      * Adds a new recurring transaction to the database and schedules transactions
      * starting from the specified start date until the current date.
+     * The recurring transaction and every transaction it owes are written in a single commit.
      *
      * @param acc_id    The ID of the associated account.
      * @param startDate The start date of the recurring transaction.
      * @param name      The name of the recurring transaction.
      * @param type      The type of transaction (e.g., DEPOSIT or WITHDRAW).
      * @param rate      The recurring rate (e.g., WEEKLY, MONTHLY).
-     * @param amount    The amount for each recurring transaction.
+     * @param amount    The amount for each recurring transaction, in cents.
      * @return The ID of the newly created recurring transaction.
      */
-    public int addRecurringTransaction(int acc_id, LocalDate startDate, String name, TransactionType type, RecurringRate rate, float amount) {
-        int rec_id; // ID of the newly created recurring transaction
-
-        // Convert the start date to epoch time for database storage
-        double startEpoch = startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
-
+    public int addRecurringTransaction(int acc_id, LocalDate startDate, String name, TransactionType type, RecurringRate rate, long amount) {
         // Convert enums to their string representations for database storage
         String transType = type.toString();
         String recurRate = rate.toString();
@@ -484,81 +1268,65 @@ public class SqlManager implements Closeable {
         // SQL query to insert a new recurring transaction
         String sql = """
                 INSERT INTO recurring_transaction (acc_id, start_date, name, type, recurring_rate, amount)
-                VALUES (?, ?, ?, ?, ?)
+                VALUES (?, ?, ?, ?, ?, ?)
                 RETURNING id;""";
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            // Bind values to the prepared statement
-            ps.setInt(1, acc_id);
-            ps.setDouble(2, startEpoch);
-            ps.setString(3, name);
-            ps.setString(4, transType);
-            ps.setString(5, recurRate);
-            ps.setFloat(6, amount);
-
-            // Execute the statement and retrieve the generated ID
-            ps.execute();
-            ResultSet rs = ps.getResultSet();
-            rs.next();
-            rec_id = rs.getInt("id");
+        try {
+            return pool.transaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                // Bind values to the prepared statement
+                ps.setInt(1, acc_id);
+                ps.setLong(2, startDate.toEpochDay());
+                ps.setString(3, name);
+                ps.setString(4, transType);
+                ps.setString(5, recurRate);
+                ps.setLong(6, amount);
+
+                // Execute the statement and retrieve the generated ID
+                int rec_id;
+                ps.execute();
+                try (ResultSet rs = ps.getResultSet()) {
+                    rs.next();
+                    rec_id = rs.getInt("id");
+                }
+
+                // Generate the transactions owed from startDate to the current date
+                RecurringTransactionRow row = new RecurringTransactionRow(rec_id, acc_id, (int) startDate.toEpochDay(),
+                        name, type, rate, amount, RecurringTransactionRow.NEVER_TRANSACTED);
+                catchUp.catchUp(List.of(row), LocalDate.now());
+                return rec_id;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to insert new recurring transaction", e);
         }
-
-        // Generate and update individual transactions from startDate to the current date
-        LocalDate workingDate = startDate;
-        while (workingDate.isBefore(LocalDate.now())) {
-            // Add a transaction for the current date
-            addTransaction(acc_id, workingDate, name, type, amount, true);
-
-            // Update the last transaction date for the recurring transaction
-            updateLastTimeTransacted(rec_id, workingDate);
-
-            // Move to the next recurring interval
-            workingDate = workingDate.plus(rate.getInterval());
-        }
-
-        return rec_id; // Return the generated recurring transaction ID
     }
 
 
     /**
      * Checks and processes all recurring transactions, creating transactions as needed
      * and updating the last transacted time for each.
+     * Each account's owed transactions are inserted as one batch in a single commit.
      */
     public void checkRecurringTransactions() {
-        for (RecurringTransactionRow row : getRecurringTransactions()) {
-            LocalDate lastTransaction = Instant.ofEpochSecond((long) row.lastTimeTransacted())
-                    .atZone(ZoneOffset.UTC)
-                    .toLocalDate();
-
-            // Calculate next transaction date based on recurring interval
-            LocalDate nextTransaction = lastTransaction.plus(row.recurringRate().getInterval());
-            while (nextTransaction.isBefore(LocalDate.now())) {
-                addTransaction(row.acc_id(), nextTransaction, row.name(), row.type(), row.amount(), true);
-                updateLastTimeTransacted(row.acc_id(), nextTransaction);
-                nextTransaction = nextTransaction.plus(row.recurringRate().getInterval());
-            }
-        }
+        catchUp.catchUp(getRecurringTransactions(), LocalDate.now());
     }
 
     /**
      * Deletes an account and all associated transactions (recurring and user transactions).
+     * The account's rows in every other table are removed by their ON DELETE CASCADE foreign keys,
+     * which look them up through the acc_id indexes, so the whole delete is one statement and one commit.
      *
      * @param acc_id The account ID to delete.
      */
     public void deleteAccount(int acc_id) {
-        String sql = """
-                DELETE account WHERE id = ?;
-                DELETE recurring_transaction WHERE acc_id = ?;
-                DELETE user_transaction WHERE acc_id = ?;""";
+        String sql = "DELETE FROM account WHERE id = ?;";
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            // Set the account ID for all three deletion queries
-            ps.setInt(1, acc_id); // Delete from `account`
-            ps.setInt(2, acc_id); // Delete related `recurring_transaction`
-            ps.setInt(3, acc_id); // Delete related `user_transaction`
-            ps.execute();
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                ps.setInt(1, acc_id);
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete account with ID: " + acc_id, e);
         }
@@ -570,26 +1338,25 @@ public class SqlManager implements Closeable {
      * @param tran_id The transaction ID to delete.
      */
     public void deleteTransaction(int tran_id) {
-        // Retrieve the transaction details to adjust the account balance
-        TransactionRow transaction = getTransaction(tran_id);
-
-        // Determine the opposite transaction type for reversing the balance impact
-        TransactionType opposite = transaction.type() == TransactionType.DEPOSIT
-                ? TransactionType.WITHDRAW
-                : TransactionType.DEPOSIT;
-
-        String sql = "DELETE user_transaction WHERE id = ?";
+        String sql = "DELETE FROM user_transaction WHERE id = ?";
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            // Set the transaction ID for deletion
-            ps.setInt(1, tran_id);
-            ps.execute();
+        try {
+            pool.transaction(statements -> {
+                // Retrieve the transaction details to adjust the account balance
+                TransactionRow transaction = getTransaction(tran_id);
+
+                PreparedStatement ps = statements.prepare(sql);
+                // Set the transaction ID for deletion
+                ps.setInt(1, tran_id);
+                ps.executeUpdate();
+
+                // Adjust the account balance to reverse the impact of the deleted transaction
+                adjustAccountBalance(transaction.acc_id(), -signedAmount(transaction.amount(), transaction.type()));
+                return null;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete transaction with ID: " + tran_id, e);
         }
-
-        // Adjust the account balance to reverse the impact of the deleted transaction
-        updateAccountBalance(transaction.acc_id(), transaction.amount(), opposite);
     }
 
     /**
@@ -598,36 +1365,120 @@ public class SqlManager implements Closeable {
      * @param rec_id The recurring transaction ID to delete.
      */
     public void deleteRecurringTransaction(int rec_id) {
-        String sql = "DELETE recurring_transaction WHERE id = ?";
+        String sql = "DELETE FROM recurring_transaction WHERE id = ?";
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            // Set the recurring transaction ID for deletion
-            ps.setInt(1, rec_id);
-            ps.execute();
+        try {
+            pool.write(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                // Set the recurring transaction ID for deletion
+                ps.setInt(1, rec_id);
+                return ps.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete recurring transaction with ID: " + rec_id, e);
         }
     }
 
     /**
-     * Closes this stream and releases any system resources associated
-     * with it. If the stream is already closed then invoking this
-     * method has no effect.
+     * Runs a group of ledger changes as one unit of work, committed together in a single SQLite
+     * transaction. Every SqlManager call made by {@code work} on the calling thread joins it.
+     * Units of work nest: a nested call runs inside a savepoint, so when it throws only its own
+     * changes are rolled back and the exception propagates to the enclosing work.
+     *
+     * @param work The changes to apply, given this manager to issue them through.
+     */
+    public void inTransaction(Consumer<SqlManager> work) {
+        callInTransaction(tx -> {
+            work.accept(tx);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a group of ledger changes as one unit of work and returns its result.
+     * Behaves exactly like {@link #inTransaction(Consumer)}.
+     *
+     * @param work The changes to apply, given this manager to issue them through.
+     * @param <T>  The type of the result.
+     * @return The value returned by {@code work}.
+     */
+    public <T> T callInTransaction(Function<SqlManager, T> work) {
+        try {
+            return pool.transaction(statements -> work.apply(this));
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to commit unit of work", e);
+        }
+    }
+
+    /**
+     * Runs work while no other thread can write, so changes it makes to the database and to in-memory state
+     * appear together to readers that also hold the writer, such as {@link #getBalance(int, WriteBehindQueue)}.
+     *
+     * @param work The work to run.
+     */
+    void exclusive(Runnable work) {
+        try {
+            pool.exclusive(statements -> {
+                work.run();
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to run exclusive work", e);
+        }
+    }
+
+    /**
+     * Retrieves a counter that changes after every write made through this manager, and after writes of
+     * other processes once {@link #checkForExternalChanges()} notices them. Values read from the database
+     * stay valid for as long as the version they were read at is current. Reading it costs no query.
+     *
+     * @return The current data version.
+     */
+    public long getDataVersion() {
+        return pool.dataVersion();
+    }
+
+    /**
+     * Checks whether another process changed the database file, advancing {@link #getDataVersion()} if so.
+     * Meant to be called at natural refresh points, such as when the window regains focus.
      *
-     * <p> As noted in {@link AutoCloseable#close()}, cases where the
-     * close may fail require careful attention. It is strongly advised
-     * to relinquish the underlying resources and to internally
-     * <em>mark</em> the {@code Closeable} as closed, prior to throwing
-     * the {@code IOException}.
+     * @return {@code true} if another process changed the database since the last check.
+     */
+    public boolean checkForExternalChanges() {
+        try {
+            return pool.checkExternalChanges();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check the database for external changes", e);
+        }
+    }
+
+    /**
+     * Retrieves how many statements were served from the statement cache since startup.
+     *
+     * @return The number of statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return pool.cacheHits();
+    }
+
+    /**
+     * Retrieves how many statements had to be compiled because they were not cached.
+     *
+     * @return The number of statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return pool.cacheMisses();
+    }
+
+    /**
+     * Closes every pooled connection and releases any system resources associated
+     * with them. If the pool is already closed then invoking this
+     * method has no effect.
      *
      * @throws IOException if an I/O error occurs
      */
     @Override
     public void close() throws IOException {
-        try {
-            conn.close();
-        } catch (SQLException e){
-            throw new RuntimeException("Fail to close data base", e);
-        }
+        pool.close();
     }
 }
@@ -0,0 +1,92 @@
+package database;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of compiled statements for a single pooled connection, keyed by SQL text.
+ * Statements handed out by {@link #prepare(String)} stay owned by the cache and must not be
+ * closed by the caller; their result sets still have to be closed after use.
+ * A cache is only ever used by the thread currently holding its connection, so it is not synchronized.
+ */
+class StatementCache implements Closeable {
+
+    private final Connection conn;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final Map<String, PreparedStatement> statements;
+
+    /**
+     * Creates a cache for the given connection.
+     *
+     * @param conn     the connection statements are compiled against.
+     * @param capacity the maximum number of statements kept open; the least recently used is closed first.
+     * @param hits     counter incremented when a statement is served from the cache.
+     * @param misses   counter incremented when a statement has to be compiled.
+     */
+    StatementCache(Connection conn, int capacity, LongAdder hits, LongAdder misses) {
+        this.conn = conn;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a compiled statement for the given SQL with its parameters cleared,
+     * compiling and caching it on first use.
+     *
+     * @param sql the SQL text of the statement.
+     * @return the cached statement.
+     * @throws SQLException if the statement cannot be compiled.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null) {
+            hits.increment();
+            ps.clearParameters();
+            return ps;
+        }
+        misses.increment();
+        ps = conn.prepareStatement(sql);
+        statements.put(sql, ps);
+        return ps;
+    }
+
+    /**
+     * Retrieves the underlying connection, for work that does not fit a cached statement.
+     *
+     * @return the connection this cache belongs to.
+     */
+    Connection connection() {
+        return conn;
+    }
+
+    /**
+     * Closes every cached statement. The connection itself is left open.
+     */
+    @Override
+    public void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignored) {
+            // The statement is discarded either way
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package database;
+
+import database.enums.RecurringRate;
+import database.enums.TransactionType;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+/**
+ * Queues edits made through the structure-layer setters and writes them to the database on a single
+ * background thread, so the calling thread (usually the JavaFX thread) never waits on disk I/O.
+ * Edits to the same row are merged while they wait: the last value of each column wins and the row is
+ * written with one UPDATE. Every batch of queued edits is written in a single commit. A batch that fails
+ * to commit is logged and queued again, merged under any edits made since, and retried with the next
+ * edit or {@link #flush()}.
+ */
+public class WriteBehindQueue implements Closeable {
+
+    /**
+     * Singleton queue writing through {@link SqlManager#DB_CONNECTION}.
+     */
+    public static final WriteBehindQueue QUEUE = new WriteBehindQueue(SqlManager.DB_CONNECTION);
+
+    // Pending column values of one row; null means the column is unchanged
+    private static final class TransactionEdit {
+        LocalDate date;
+        String name;
+        TransactionType type;
+        Long amount;
+        // Account whose balance the type and amount edits change, and by how many cents
+        int acc_id;
+        long balanceChange;
+    }
+
+    private static final class AccountEdit {
+        String name;
+        String card;
+        String bank;
+    }
+
+    private static final class RecurringTransactionEdit {
+        String name;
+        TransactionType type;
+        RecurringRate rate;
+        Long amount;
+    }
+
+    private static final System.Logger LOG = System.getLogger(WriteBehindQueue.class.getName());
+
+    private final SqlManager dbConn;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guards the pending edits and the bookkeeping below
+    private final Object lock = new Object();
+    private Map<Integer, TransactionEdit> transactions = new LinkedHashMap<>();
+    private Map<Integer, AccountEdit> accounts = new LinkedHashMap<>();
+    private Map<Integer, RecurringTransactionEdit> recurringTransactions = new LinkedHashMap<>();
+    // Transaction edits taken by a drain whose commit has not ended yet
+    private Map<Integer, TransactionEdit> writingTransactions = Map.of();
+    // Transactions discarded while a drain was writing, whose edits must not be queued again if it fails
+    private final Set<Integer> discardedWhileWriting = new HashSet<>();
+    private boolean drainScheduled;
+    private int drainsInFlight;
+    private RuntimeException failure;
+
+    /**
+     * Creates a queue writing through the given database manager.
+     *
+     * @param dbConn the database manager performing the writes.
+     */
+    protected WriteBehindQueue(SqlManager dbConn) {
+        this.dbConn = dbConn;
+    }
+
+    /**
+     * Queues a new date for a transaction.
+     *
+     * @param tran_id the transaction ID.
+     * @param date    the new date.
+     */
+    public void setTransactionDate(int tran_id, LocalDate date) {
+        synchronized (lock) {
+            transactions.computeIfAbsent(tran_id, id -> new TransactionEdit()).date = date;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new name for a transaction.
+     *
+     * @param tran_id the transaction ID.
+     * @param name    the new name.
+     */
+    public void setTransactionName(int tran_id, String name) {
+        synchronized (lock) {
+            transactions.computeIfAbsent(tran_id, id -> new TransactionEdit()).name = name;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new type for a transaction. The account balance is adjusted when the edit is written;
+     * until then the change is counted by {@link #pendingBalanceChange(int)}.
+     *
+     * @param tran_id       the transaction ID.
+     * @param acc_id        the account ID of the transaction.
+     * @param type          the new transaction type.
+     * @param balanceChange the resulting change of the account balance, in cents.
+     */
+    public void setTransactionType(int tran_id, int acc_id, TransactionType type, long balanceChange) {
+        synchronized (lock) {
+            TransactionEdit edit = transactions.computeIfAbsent(tran_id, id -> new TransactionEdit());
+            edit.type = type;
+            addBalanceChange(edit, acc_id, balanceChange);
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new amount for a transaction. The account balance is adjusted when the edit is written;
+     * until then the change is counted by {@link #pendingBalanceChange(int)}.
+     *
+     * @param tran_id       the transaction ID.
+     * @param acc_id        the account ID of the transaction.
+     * @param amount        the new amount, in cents.
+     * @param balanceChange the resulting change of the account balance, in cents.
+     */
+    public void setTransactionAmount(int tran_id, int acc_id, long amount, long balanceChange) {
+        synchronized (lock) {
+            TransactionEdit edit = transactions.computeIfAbsent(tran_id, id -> new TransactionEdit());
+            edit.amount = amount;
+            addBalanceChange(edit, acc_id, balanceChange);
+            scheduleDrain();
+        }
+    }
+
+    private static void addBalanceChange(TransactionEdit edit, int acc_id, long balanceChange) {
+        edit.acc_id = acc_id;
+        edit.balanceChange += balanceChange;
+    }
+
+    /**
+     * Queues a new name for an account.
+     *
+     * @param acc_id the account ID.
+     * @param name   the new name.
+     */
+    public void setAccountName(int acc_id, String name) {
+        synchronized (lock) {
+            accounts.computeIfAbsent(acc_id, id -> new AccountEdit()).name = name;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new card number for an account.
+     *
+     * @param acc_id the account ID.
+     * @param card   the new card number.
+     */
+    public void setAccountCard(int acc_id, String card) {
+        synchronized (lock) {
+            accounts.computeIfAbsent(acc_id, id -> new AccountEdit()).card = card;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new bank name for an account.
+     *
+     * @param acc_id the account ID.
+     * @param bank   the new bank name.
+     */
+    public void setAccountBank(int acc_id, String bank) {
+        synchronized (lock) {
+            accounts.computeIfAbsent(acc_id, id -> new AccountEdit()).bank = bank;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new name for a recurring transaction.
+     *
+     * @param rec_id the recurring transaction ID.
+     * @param name   the new name.
+     */
+    public void setRecurringTransactionName(int rec_id, String name) {
+        synchronized (lock) {
+            recurringTransactions.computeIfAbsent(rec_id, id -> new RecurringTransactionEdit()).name = name;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new type for a recurring transaction.
+     *
+     * @param rec_id the recurring transaction ID.
+     * @param type   the new transaction type.
+     */
+    public void setRecurringTransactionType(int rec_id, TransactionType type) {
+        synchronized (lock) {
+            recurringTransactions.computeIfAbsent(rec_id, id -> new RecurringTransactionEdit()).type = type;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new recurring rate for a recurring transaction.
+     *
+     * @param rec_id the recurring transaction ID.
+     * @param rate   the new recurring rate.
+     */
+    public void setRecurringTransactionRate(int rec_id, RecurringRate rate) {
+        synchronized (lock) {
+            recurringTransactions.computeIfAbsent(rec_id, id -> new RecurringTransactionEdit()).rate = rate;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Queues a new amount for a recurring transaction.
+     *
+     * @param rec_id the recurring transaction ID.
+     * @param amount the new amount, in cents.
+     */
+    public void setRecurringTransactionAmount(int rec_id, long amount) {
+        synchronized (lock) {
+            recurringTransactions.computeIfAbsent(rec_id, id -> new RecurringTransactionEdit()).amount = amount;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Drops the queued edits of a transaction that is about to be deleted.
+     *
+     * @param tran_id the transaction ID.
+     */
+    public void discardTransaction(int tran_id) {
+        synchronized (lock) {
+            transactions.remove(tran_id);
+            if (drainsInFlight > 0) discardedWhileWriting.add(tran_id);
+        }
+    }
+
+    /**
+     * Drops the queued edits of an account that is about to be deleted.
+     *
+     * @param acc_id the account ID.
+     */
+    public void discardAccount(int acc_id) {
+        synchronized (lock) {
+            accounts.remove(acc_id);
+        }
+    }
+
+    /**
+     * Drops the queued edits of a recurring transaction that is about to be deleted.
+     *
+     * @param rec_id the recurring transaction ID.
+     */
+    public void discardRecurringTransaction(int rec_id) {
+        synchronized (lock) {
+            recurringTransactions.remove(rec_id);
+        }
+    }
+
+    /**
+     * Sums the balance changes of an account's queued transaction edits, including those being written
+     * right now. Edits leave the sum in the same writer critical section that commits them, so a caller
+     * holding the writer (see {@link SqlManager#getBalance(int, WriteBehindQueue)}) can add it to the stored
+     * balance without counting a change twice or missing it.
+     *
+     * @param acc_id the account ID.
+     * @return the change of the stored balance once every queued edit is written, in cents.
+     */
+    public long pendingBalanceChange(int acc_id) {
+        synchronized (lock) {
+            return balanceChange(transactions, acc_id) + balanceChange(writingTransactions, acc_id);
+        }
+    }
+
+    private static long balanceChange(Map<Integer, TransactionEdit> edits, int acc_id) {
+        long change = 0;
+        for (TransactionEdit edit : edits.values()) {
+            if (edit.acc_id == acc_id) change += edit.balanceChange;
+        }
+        return change;
+    }
+
+    /**
+     * Indicates whether queued edits have not been committed yet.
+     *
+     * @return {@code true} while any edit is queued or being written.
+     */
+    public boolean hasPending() {
+        synchronized (lock) {
+            return drainScheduled || drainsInFlight > 0
+                    || !transactions.isEmpty() || !accounts.isEmpty() || !recurringTransactions.isEmpty();
+        }
+    }
+
+    /**
+     * Blocks until every edit queued before this call has been committed.
+     * Must not be called from the queue's own writer thread.
+     *
+     * @throws RuntimeException if writing queued edits failed since the last flush; edits that could not be
+     *                          written stay queued.
+     */
+    public void flush() {
+        try {
+            writer.submit(this::drain).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while flushing queued edits", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to flush queued edits", e.getCause());
+        }
+        synchronized (lock) {
+            RuntimeException e = failure;
+            failure = null;
+            if (e != null) throw e;
+        }
+    }
+
+    /**
+     * Flushes every queued edit and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Drops the balance changes of the transaction edits being written, once they are part of the commit.
+     */
+    private void doneWriting() {
+        synchronized (lock) {
+            writingTransactions = Map.of();
+        }
+    }
+
+    /**
+     * Queues the edits of a batch that failed to commit again, with their balance changes still pending.
+     * Edits made to the same rows since the batch was taken are newer and win column by column.
+     *
+     * @param tranEdits the transaction edits of the batch.
+     * @param accEdits  the account edits of the batch.
+     * @param recEdits  the recurring transaction edits of the batch.
+     */
+    private void requeue(Map<Integer, TransactionEdit> tranEdits, Map<Integer, AccountEdit> accEdits,
+                         Map<Integer, RecurringTransactionEdit> recEdits) {
+        synchronized (lock) {
+            // Account and recurring transaction edits of deleted rows update nothing, but a deleted
+            // transaction's balance change must not stay pending
+            tranEdits.keySet().removeAll(discardedWhileWriting);
+            transactions = merge(tranEdits, transactions, WriteBehindQueue::mergeTransaction);
+            accounts = merge(accEdits, accounts, WriteBehindQueue::mergeAccount);
+            recurringTransactions = merge(recEdits, recurringTransactions, WriteBehindQueue::mergeRecurring);
+            writingTransactions = Map.of();
+        }
+    }
+
+    /**
+     * Combines failed edits with the edits queued since, keeping the failed ones first.
+     *
+     * @param failed the edits of the failed batch.
+     * @param queued the edits queued since the batch was taken.
+     * @param newer  merges an older edit into a newer edit of the same row and returns the result.
+     * @param <E>    the type of the edits.
+     * @return the combined edits.
+     */
+    private static <E> Map<Integer, E> merge(Map<Integer, E> failed, Map<Integer, E> queued, BinaryOperator<E> newer) {
+        Map<Integer, E> merged = new LinkedHashMap<>(failed);
+        queued.forEach((id, edit) -> merged.merge(id, edit, newer));
+        return merged;
+    }
+
+    private static TransactionEdit mergeTransaction(TransactionEdit older, TransactionEdit newer) {
+        if (newer.date == null) newer.date = older.date;
+        if (newer.name == null) newer.name = older.name;
+        if (newer.type == null) newer.type = older.type;
+        if (newer.amount == null) newer.amount = older.amount;
+        // Both edits change the balance of the same account; a name or date edit alone names none
+        if (older.balanceChange != 0) newer.acc_id = older.acc_id;
+        newer.balanceChange += older.balanceChange;
+        return newer;
+    }
+
+    private static AccountEdit mergeAccount(AccountEdit older, AccountEdit newer) {
+        if (newer.name == null) newer.name = older.name;
+        if (newer.card == null) newer.card = older.card;
+        if (newer.bank == null) newer.bank = older.bank;
+        return newer;
+    }
+
+    private static RecurringTransactionEdit mergeRecurring(RecurringTransactionEdit older, RecurringTransactionEdit newer) {
+        if (newer.name == null) newer.name = older.name;
+        if (newer.type == null) newer.type = older.type;
+        if (newer.rate == null) newer.rate = older.rate;
+        if (newer.amount == null) newer.amount = older.amount;
+        return newer;
+    }
+
+    /**
+     * Makes sure a drain is queued on the writer thread. Must hold {@link #lock}.
+     */
+    private void scheduleDrain() {
+        if (drainScheduled) return;
+        drainScheduled = true;
+        writer.execute(this::drain);
+    }
+
+    /**
+     * Takes every queued edit and writes them in one commit. Runs on the writer thread only.
+     */
+    private void drain() {
+        Map<Integer, TransactionEdit> tranEdits;
+        Map<Integer, AccountEdit> accEdits;
+        Map<Integer, RecurringTransactionEdit> recEdits;
+        synchronized (lock) {
+            drainScheduled = false;
+            tranEdits = transactions;
+            accEdits = accounts;
+            recEdits = recurringTransactions;
+            transactions = new LinkedHashMap<>();
+            accounts = new LinkedHashMap<>();
+            recurringTransactions = new LinkedHashMap<>();
+            if (tranEdits.isEmpty() && accEdits.isEmpty() && recEdits.isEmpty()) return;
+            writingTransactions = tranEdits;
+            drainsInFlight++;
+        }
+
+        try {
+            // The writer is held across the commit or rollback and the bookkeeping after it, so readers holding
+            // the writer see each balance change either pending or stored, never both or neither
+            dbConn.exclusive(() -> {
+                try {
+                    dbConn.inTransaction(tx -> {
+                        accEdits.forEach((id, edit) -> tx.updateAccount(id, edit.name, edit.card, edit.bank));
+                        tranEdits.forEach((id, edit) -> tx.updateTransaction(id, edit.date, edit.name, edit.type, edit.amount));
+                        recEdits.forEach((id, edit) -> tx.updateRecurringTransaction(id, edit.name, edit.type, edit.rate, edit.amount));
+                    });
+                } catch (RuntimeException e) {
+                    requeue(tranEdits, accEdits, recEdits);
+                    throw e;
+                }
+                doneWriting();
+            });
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, "Failed to write queued edits; they stay queued for the next attempt", e);
+            synchronized (lock) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        } finally {
+            synchronized (lock) {
+                writingTransactions = Map.of();
+                discardedWhileWriting.clear();
+                drainsInFlight--;
+            }
+        }
+    }
+}
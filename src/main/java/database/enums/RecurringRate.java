@@ -1,10 +1,15 @@
 package database.enums;
 
+import java.time.LocalDate;
 import java.time.Period;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Represents the recurrence rate for recurring transactions.
- * Provides methods to retrieve the interval duration and custom string representations.
+ * Provides methods to retrieve the interval duration and custom string representations, and to compute
+ * occurrence dates directly instead of stepping through the calendar one interval at a time.
+ * Occurrence {@code n} of a schedule is always {@code start + n * interval}, anchored on the start date,
+ * so a schedule starting on the 31st falls on the last day of shorter months without drifting.
  */
 public enum RecurringRate {
     WEEKLY,
@@ -43,4 +48,71 @@ public enum RecurringRate {
             case YEARLY -> Period.ofYears(1);
         };
     }
+
+    /**
+     * Retrieves the occurrence with a given index of a schedule.
+     *
+     * @param start the start date of the schedule, which is occurrence 0.
+     * @param n     the index of the occurrence, at least 0.
+     * @return the date of occurrence {@code n}.
+     */
+    public LocalDate nthOccurrence(LocalDate start, long n) {
+        return switch (this) {
+            case WEEKLY -> start.plusWeeks(n);
+            case BI_WEEKLY -> start.plusWeeks(2 * n);
+            case MONTHLY -> start.plusMonths(n);
+            case QUARTERLY -> start.plusMonths(3 * n);
+            case YEARLY -> start.plusMonths(12 * n);
+        };
+    }
+
+    /**
+     * Counts the occurrences of a schedule that fall strictly before a date.
+     * This is also the index of the first occurrence on or after that date.
+     *
+     * @param start the start date of the schedule.
+     * @param date  the date to count up to, exclusive.
+     * @return the number of occurrences before {@code date}.
+     */
+    public long occurrencesBefore(LocalDate start, LocalDate date) {
+        if (!date.isAfter(start)) return 0;
+        long n = switch (this) {
+            case WEEKLY, BI_WEEKLY -> {
+                long days = ChronoUnit.DAYS.between(start, date);
+                long step = this == WEEKLY ? 7 : 14;
+                yield (days + step - 1) / step;
+            }
+            case MONTHLY -> ChronoUnit.MONTHS.between(start, date);
+            case QUARTERLY -> ChronoUnit.MONTHS.between(start, date) / 3;
+            case YEARLY -> ChronoUnit.MONTHS.between(start, date) / 12;
+        };
+        // Whole months ignore end-of-month clamping, so the estimate can be one off in either direction
+        while (nthOccurrence(start, n).isBefore(date)) n++;
+        while (n > 0 && !nthOccurrence(start, n - 1).isBefore(date)) n--;
+        return n;
+    }
+
+    /**
+     * Counts the occurrences of a schedule in the half-open range {@code [from, to)}.
+     *
+     * @param start the start date of the schedule.
+     * @param from  the first date of the range, inclusive.
+     * @param to    the last date of the range, exclusive.
+     * @return the number of occurrences in the range, or 0 if the range is empty.
+     */
+    public long countBetween(LocalDate start, LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) return 0;
+        return occurrencesBefore(start, to) - occurrencesBefore(start, from);
+    }
+
+    /**
+     * Retrieves the first occurrence of a schedule strictly after a date.
+     *
+     * @param start the start date of the schedule.
+     * @param date  the date to look past.
+     * @return the date of the next occurrence.
+     */
+    public LocalDate nextOccurrenceAfter(LocalDate start, LocalDate date) {
+        return nthOccurrence(start, occurrencesBefore(start, date.plusDays(1)));
+    }
 }
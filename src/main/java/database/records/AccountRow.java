@@ -5,10 +5,10 @@ package database.records;
  * Provides a structured way to store account details retrieved from the database.
  *
  * @param id      the unique identifier for the account.
- * @param balance the current balance of the account.
+ * @param balance the current balance of the account, in cents.
  * @param name    the name of the account holder or account.
  * @param card    the card number or identifier associated with the account.
  * @param bank    the name of the bank associated with the account.
  */
-public record AccountRow(int id, float balance, String name, String card, String bank) {
+public record AccountRow(int id, long balance, String name, String card, String bank) {
 }
@@ -0,0 +1,16 @@
+package database.records;
+
+import database.enums.TransactionType;
+
+/**
+ * Represents the totals of one account's transactions of one type within one month.
+ * Rows are kept current by the database as transactions are added, edited and deleted.
+ *
+ * @param acc_id    the account ID the totals belong to.
+ * @param yearMonth the month, encoded as {@code year * 100 + month} (e.g. 202405 for May 2024).
+ * @param type      the type of the summed transactions (withdraw or deposit).
+ * @param total     the sum of the transaction amounts, in cents.
+ * @param count     the number of transactions summed.
+ */
+public record MonthlySummaryRow(int acc_id, int yearMonth, TransactionType type, long total, int count) {
+}
@@ -0,0 +1,11 @@
+package database.records;
+
+/**
+ * Represents the total of the transactions sharing one name, such as everything paid to one payee.
+ *
+ * @param name  the shared transaction name.
+ * @param total the sum of the transaction amounts, in cents.
+ * @param count the number of transactions summed.
+ */
+public record PayeeTotalRow(String name, long total, int count) {
+}
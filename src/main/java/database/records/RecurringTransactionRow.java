@@ -9,13 +9,19 @@ import database.enums.TransactionType;
  *
  * @param id                 the unique identifier for the recurring transaction.
  * @param acc_id             the account ID associated with the recurring transaction.
- * @param start_date         the start date of the recurring transaction as a Unix timestamp (in seconds).
+ * @param start_date         the start date of the recurring transaction, in days since 1970-01-01.
  * @param name               the name or description of the recurring transaction.
  * @param type               the type of the transaction (withdraw or deposit).
  * @param recurringRate      the recurrence rate (e.g., weekly, monthly).
- * @param amount             the amount involved in the recurring transaction.
- * @param lastTimeTransacted the last time the transaction was processed, as a Unix timestamp (in seconds).
+ * @param amount             the amount involved in the recurring transaction, in cents.
+ * @param lastTimeTransacted the date of the last generated transaction, in days since 1970-01-01,
+ *                           or {@link #NEVER_TRANSACTED} if none has been generated yet.
  */
-public record RecurringTransactionRow(int id, int acc_id, double start_date, String name, TransactionType type,
-                                      RecurringRate recurringRate, float amount, double lastTimeTransacted) {
+public record RecurringTransactionRow(int id, int acc_id, int start_date, String name, TransactionType type,
+                                      RecurringRate recurringRate, long amount, int lastTimeTransacted) {
+
+    /**
+     * Value of {@code lastTimeTransacted} for a recurring transaction that has not generated any transaction.
+     */
+    public static final int NEVER_TRANSACTED = Integer.MIN_VALUE;
 }
@@ -7,10 +7,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A utility class for converting database query results into record objects.
- * Converts {@link ResultSet} rows into lists of corresponding record objects.
+ * Converts {@link ResultSet} rows into lists of corresponding record objects, or streams them
+ * one row at a time for results too large to hold in memory.
  */
 public class TableToRecordAPI {
 
@@ -28,7 +34,7 @@ public class TableToRecordAPI {
                 rows.add(
                         new AccountRow(
                                 rs.getInt("id"),
-                                rs.getFloat("balance"),
+                                rs.getLong("balance"),
                                 rs.getString("name"),
                                 rs.getString("card"),
                                 rs.getString("bank")
@@ -48,24 +54,117 @@ public class TableToRecordAPI {
      */
     public static List<TransactionRow> toTransactions(ResultSet rs) throws SQLException {
         List<TransactionRow> rows = new ArrayList<>();
+        forEachTransaction(rs, rows::add);
+        return rows;
+    }
+
+    /**
+     * Maps every row of a {@link ResultSet} to a {@link TransactionRow} and hands it to {@code action}
+     * as soon as it is read, without collecting the rows. The ResultSet is closed afterwards.
+     *
+     * @param rs     the {@link ResultSet} containing transaction data.
+     * @param action the action to run for each row.
+     * @throws SQLException if an error occurs while accessing the {@link ResultSet}.
+     */
+    public static void forEachTransaction(ResultSet rs, Consumer<TransactionRow> action) throws SQLException {
         try (rs) {  // Automatically closes ResultSet
+            TransactionColumns columns = new TransactionColumns(rs);
             while (rs.next()) {
-                TransactionType type = rs.getString("type").equals("withdraw") ?
-                        TransactionType.WITHDRAW : TransactionType.DEPOSIT;
-                rows.add(
-                        new TransactionRow(
-                                rs.getInt("id"),
-                                rs.getInt("acc_id"),
-                                rs.getDouble("date"),
-                                rs.getString("name"),
-                                type,
-                                rs.getFloat("amount"),
-                                rs.getBoolean("recurring")
-                        )
-                );
+                action.accept(columns.read(rs));
             }
         }
-        return rows;
+    }
+
+    /**
+     * Hands the numeric columns of every row of a {@link ResultSet} to {@code sink} as soon as they are read,
+     * skipping the name and creating no record per row. The ResultSet is closed afterwards.
+     *
+     * @param rs   the {@link ResultSet} containing transaction data.
+     * @param sink the receiver of each row's columns.
+     * @throws SQLException if an error occurs while accessing the {@link ResultSet}.
+     */
+    public static void loadTransactions(ResultSet rs, TransactionSink sink) throws SQLException {
+        try (rs) {  // Automatically closes ResultSet
+            int id = rs.findColumn("id");
+            int accId = rs.findColumn("acc_id");
+            int date = rs.findColumn("date");
+            int type = rs.findColumn("type");
+            int amount = rs.findColumn("amount");
+            while (rs.next()) {
+                sink.accept(rs.getInt(id), rs.getInt(accId), rs.getInt(date), toType(rs.getString(type)), rs.getLong(amount));
+            }
+        }
+    }
+
+    /**
+     * Lazily maps the rows of a {@link ResultSet} to {@link TransactionRow} objects.
+     * Rows are read from the database only as the stream is consumed, so memory use does not grow
+     * with the number of rows. Closing the stream closes the ResultSet; callers should use
+     * try-with-resources.
+     *
+     * @param rs the {@link ResultSet} containing transaction data.
+     * @return a sequential stream of {@link TransactionRow} objects.
+     * @throws SQLException if the columns of the {@link ResultSet} cannot be resolved.
+     */
+    public static Stream<TransactionRow> streamTransactions(ResultSet rs) throws SQLException {
+        return stream(rs, new TransactionColumns(rs)::read, "transaction");
+    }
+
+    /**
+     * Lazily maps the rows of a {@link ResultSet} to {@link PayeeTotalRow} objects, like
+     * {@link #streamTransactions(ResultSet)}.
+     *
+     * @param rs the {@link ResultSet} containing {@code name}, {@code total} and {@code count} columns.
+     * @return a sequential stream of {@link PayeeTotalRow} objects.
+     * @throws SQLException if the columns of the {@link ResultSet} cannot be resolved.
+     */
+    public static Stream<PayeeTotalRow> streamPayeeTotals(ResultSet rs) throws SQLException {
+        int name = rs.findColumn("name");
+        int total = rs.findColumn("total");
+        int count = rs.findColumn("count");
+        return stream(rs, row -> new PayeeTotalRow(row.getString(name), row.getLong(total), row.getInt(count)), "payee total");
+    }
+
+    /**
+     * Reads one row of a {@link ResultSet} into a record.
+     *
+     * @param <T> the type of the record.
+     */
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Lazily maps the rows of a {@link ResultSet}, reading the next row only when the stream asks for it.
+     * Closing the stream closes the ResultSet.
+     *
+     * @param rs     the {@link ResultSet} to read.
+     * @param reader the mapping of one row.
+     * @param what   the kind of row, for error messages.
+     * @return a sequential stream of the mapped rows.
+     */
+    private static <T> Stream<T> stream(ResultSet rs, RowReader<T> reader, String what) {
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) return false;
+                    action.accept(reader.read(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Failed to read " + what + " row", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to close " + what + " rows", e);
+            }
+        });
     }
 
     /**
@@ -78,10 +177,18 @@ public class TableToRecordAPI {
     public static List<RecurringTransactionRow> toRecurringTransactions(ResultSet rs) throws SQLException {
         List<RecurringTransactionRow> rows = new ArrayList<>();
         try (rs) {  // Automatically closes ResultSet
+            // Column positions are resolved once instead of by name for every row
+            int id = rs.findColumn("id");
+            int accId = rs.findColumn("acc_id");
+            int startDate = rs.findColumn("start_date");
+            int name = rs.findColumn("name");
+            int type = rs.findColumn("type");
+            int recurringRate = rs.findColumn("recurring_rate");
+            int amount = rs.findColumn("amount");
+            int lastTimeTransacted = rs.findColumn("last_time_transacted");
+
             while (rs.next()) {
-                TransactionType type = rs.getString("type").equals("withdraw") ?
-                        TransactionType.WITHDRAW : TransactionType.DEPOSIT;
-                RecurringRate rate = switch (rs.getString("recurring_rate")) {
+                RecurringRate rate = switch (rs.getString(recurringRate)) {
                     case "weekly" -> RecurringRate.WEEKLY;
                     case "bi-weekly" -> RecurringRate.BI_WEEKLY;
                     case "monthly" -> RecurringRate.MONTHLY;
@@ -89,20 +196,96 @@ public class TableToRecordAPI {
                     case "yearly" -> RecurringRate.YEARLY;
                     default -> throw new SQLException("Failed to retrieve recurring rate");
                 };
+                int lastDay = rs.getInt(lastTimeTransacted);
+                if (rs.wasNull()) lastDay = RecurringTransactionRow.NEVER_TRANSACTED;
                 rows.add(
                         new RecurringTransactionRow(
-                                rs.getInt("id"),
-                                rs.getInt("acc_id"),
-                                rs.getDouble("start_date"),
-                                rs.getString("name"),
-                                type,
+                                rs.getInt(id),
+                                rs.getInt(accId),
+                                rs.getInt(startDate),
+                                rs.getString(name),
+                                toType(rs.getString(type)),
                                 rate,
-                                rs.getFloat("amount"),
-                                rs.getDouble("last_time_transacted")
+                                rs.getLong(amount),
+                                lastDay
                         )
                 );
             }
         }
         return rows;
     }
+
+    /**
+     * Converts a {@link ResultSet} into a list of {@link MonthlySummaryRow} objects.
+     *
+     * @param rs the {@link ResultSet} containing monthly summary data.
+     * @return a list of {@link MonthlySummaryRow} objects.
+     * @throws SQLException if an error occurs while accessing the {@link ResultSet}.
+     */
+    public static List<MonthlySummaryRow> toMonthlySummaries(ResultSet rs) throws SQLException {
+        List<MonthlySummaryRow> rows = new ArrayList<>();
+        try (rs) {  // Automatically closes ResultSet
+            while (rs.next()) {
+                rows.add(
+                        new MonthlySummaryRow(
+                                rs.getInt("acc_id"),
+                                rs.getInt("year_month"),
+                                toType(rs.getString("type")),
+                                rs.getLong("total"),
+                                rs.getInt("count")
+                        )
+                );
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Parses the stored representation of a transaction type.
+     *
+     * @param type the stored type, "withdraw" or "deposit".
+     * @return the matching {@link TransactionType}.
+     */
+    private static TransactionType toType(String type) {
+        return type.equals("withdraw") ? TransactionType.WITHDRAW : TransactionType.DEPOSIT;
+    }
+
+    /**
+     * Positions of the transaction columns in a {@link ResultSet}, resolved once per ResultSet
+     * so rows can be read by index.
+     */
+    private static final class TransactionColumns {
+        private final int id;
+        private final int accId;
+        private final int date;
+        private final int name;
+        private final int type;
+        private final int amount;
+        private final int recurring;
+        private final int recId;
+
+        private TransactionColumns(ResultSet rs) throws SQLException {
+            id = rs.findColumn("id");
+            accId = rs.findColumn("acc_id");
+            date = rs.findColumn("date");
+            name = rs.findColumn("name");
+            type = rs.findColumn("type");
+            amount = rs.findColumn("amount");
+            recurring = rs.findColumn("recurring");
+            recId = rs.findColumn("rec_id");
+        }
+
+        private TransactionRow read(ResultSet rs) throws SQLException {
+            return new TransactionRow(
+                    rs.getInt(id),
+                    rs.getInt(accId),
+                    rs.getInt(date),
+                    rs.getString(name),
+                    toType(rs.getString(type)),
+                    rs.getLong(amount),
+                    rs.getBoolean(recurring),
+                    rs.getInt(recId)  // NULL reads as 0, i.e. NO_RECURRING_TRANSACTION
+            );
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package database.records;
+
+/**
+ * Represents the position of a transaction in the (date, id) ordering used to page through transactions.
+ * A page request continues strictly after the key of the last row it previously returned.
+ *
+ * @param date the transaction date, in days since 1970-01-01.
+ * @param id   the unique identifier for the transaction, breaking ties between equal dates.
+ */
+public record TransactionKey(int date, int id) {
+
+    /**
+     * Creates the key of a transaction row.
+     *
+     * @param row the transaction row.
+     * @return the position of the row in the (date, id) ordering.
+     */
+    public static TransactionKey of(TransactionRow row) {
+        return new TransactionKey(row.date(), row.id());
+    }
+}
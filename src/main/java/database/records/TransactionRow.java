@@ -8,11 +8,19 @@ import database.enums.TransactionType;
  *
  * @param id        the unique identifier for the transaction.
  * @param acc_id    the account ID associated with the transaction.
- * @param date      the transaction date as a Unix timestamp (in seconds).
+ * @param date      the transaction date, in days since 1970-01-01.
  * @param name      the name or description of the transaction.
  * @param type      the type of the transaction (withdraw or deposit).
- * @param amount    the amount involved in the transaction.
+ * @param amount    the amount involved in the transaction, in cents.
  * @param recurring a flag indicating whether the transaction is recurring.
+ * @param rec_id    the ID of the recurring transaction that posted it, or {@link #NO_RECURRING_TRANSACTION}.
  */
-public record TransactionRow(int id, int acc_id, double date, String name, TransactionType type, float amount, boolean recurring) {
+public record TransactionRow(int id, int acc_id, int date, String name, TransactionType type, long amount, boolean recurring,
+                             int rec_id) {
+
+    /**
+     * Value of {@link #rec_id()} for transactions not posted by a recurring transaction (a NULL column).
+     * AUTOINCREMENT IDs start at 1, so 0 never names a real row.
+     */
+    public static final int NO_RECURRING_TRANSACTION = 0;
 }
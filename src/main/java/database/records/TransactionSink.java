@@ -0,0 +1,22 @@
+package database.records;
+
+import database.enums.TransactionType;
+
+/**
+ * Receives the numeric columns of transaction rows one at a time, for bulk loading into compact
+ * storage without creating a {@link TransactionRow} or reading the name of every row.
+ */
+@FunctionalInterface
+public interface TransactionSink {
+
+    /**
+     * Accepts one transaction row.
+     *
+     * @param id     the unique identifier for the transaction.
+     * @param acc_id the account ID associated with the transaction.
+     * @param date   the transaction date, in days since 1970-01-01.
+     * @param type   the type of the transaction (withdraw or deposit).
+     * @param amount the amount involved in the transaction, in cents.
+     */
+    void accept(int id, int acc_id, int date, TransactionType type, long amount);
+}
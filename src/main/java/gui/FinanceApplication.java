@@ -1,6 +1,8 @@
 package gui;
 
+import database.RecurringScheduler;
 import database.SqlManager;
+import database.WriteBehindQueue;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -25,11 +27,17 @@ public class FinanceApplication extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
         GUILoader.stage = primaryStage;
+        // Another instance may have written to the database while the window was in the background
+        primaryStage.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (focused) SqlManager.DB_CONNECTION.checkForExternalChanges();
+        });
     }
 
     public static void main(String[] args) {
-        // Closes database connection when program is finished
-        try (SqlManager.DB_CONNECTION){
+        // Stops the scheduler, writes queued edits, then closes database connection when program is finished
+        try (SqlManager.DB_CONNECTION; WriteBehindQueue.QUEUE; RecurringScheduler.SCHEDULER){
+            // Posts recurring transactions as they come due while the program runs
+            RecurringScheduler.SCHEDULER.start();
             launch();
         } catch (IOException e) {
             throw new RuntimeException(e);
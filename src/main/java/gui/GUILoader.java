@@ -1,9 +1,14 @@
 package gui;
 
+import database.SqlManager;
 import gui.controller.EditAccountController;
+import gui.controller.EditRecurringTransactionController;
 import gui.controller.EditTransactionController;
+import gui.controller.SummaryStatsController;
 import gui.controller.TransactionsController;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
 import javafx.stage.Stage;
 import structure.Account;
 import structure.RecurringTransaction;
@@ -28,7 +33,14 @@ public class GUILoader {
             case NEW_RECURRING_TRANSACTION -> GUILoader.class.getResource("gui\\new-recurring-transaction.fxml");
         };
     }
+    /**
+     * Lets cached data notice writes of other processes before a screen showing it is built.
+     */
+    private static void refresh(){
+        SqlManager.DB_CONNECTION.checkForExternalChanges();
+    }
     public static void swapHome() throws IOException{
+        refresh();
         try{
             FXMLLoader loader = new FXMLLoader(getResource(UI.HOME));
             stage.setScene(loader.load());
@@ -37,6 +49,7 @@ public class GUILoader {
         }
     }
     public static void swapTransactions(Account[] accounts) throws IOException{
+        refresh();
         try{
             FXMLLoader loader = new FXMLLoader(getResource(UI.TRANSACTIONS));
             TransactionsController controller = loader.getController();
@@ -48,9 +61,18 @@ public class GUILoader {
         }
     }
     public static void swapSummaryStats() throws IOException{
+        swapSummaryStats(Account.getAccounts(true));
+    }
+    public static void swapSummaryStats(Account[] accounts) throws IOException{
+        refresh();
         try{
             FXMLLoader loader = new FXMLLoader(getResource(UI.SUMMARY_STATS));
-            stage.setScene(loader.load());
+            // The controller only exists once the FXML is loaded; the statistics fill in when computed
+            Parent root = loader.load();
+            SummaryStatsController controller = loader.getController();
+            controller.showAccounts(accounts);
+
+            stage.setScene(new Scene(root));
         } catch (IOException e){
             throw new RuntimeException("Fail to swap scene to SUMMARY_STATS", e);
         }
@@ -104,10 +126,11 @@ public class GUILoader {
     public static void swapEditRecurringTransaction(RecurringTransaction recurringTransaction){
         try{
             FXMLLoader loader = new FXMLLoader(getResource(UI.EDIT_RECURRING_TRANSACTION));
+            Parent root = loader.load();
             EditRecurringTransactionController controller = loader.getController();
             controller.renderRecurringTransaction(recurringTransaction);
 
-            stage.setScene(loader.load());
+            stage.setScene(new Scene(root));
         } catch (IOException e){
             throw new RuntimeException("Fail to swap scene to EDIT_RECURRING_TRANSACTION", e);
         }
@@ -4,6 +4,8 @@ import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
+import structure.Money;
+import structure.RecurringTransaction;
 
 public class EditRecurringTransactionController {
     @FXML
@@ -17,6 +19,9 @@ public class EditRecurringTransactionController {
     @FXML
     public TextField amountEntry;
 
+    // The recurring transaction shown by the form
+    private RecurringTransaction recurringTransaction;
+
     @FXML
     public void backButton(){
 
@@ -26,4 +31,20 @@ public class EditRecurringTransactionController {
     public void saveButton(){
 
     }
+
+    /**
+     * Fills the form with the details of the recurring transaction being edited.
+     * The start date anchors every posting, so it is shown but cannot be changed.
+     *
+     * @param recurringTransaction the recurring transaction to edit.
+     */
+    public void renderRecurringTransaction(RecurringTransaction recurringTransaction){
+        this.recurringTransaction = recurringTransaction;
+        transactionType.setValue(recurringTransaction.getType().toString());
+        frequencyType.setValue(recurringTransaction.getRecurringRate().toString());
+        dateEntry.setValue(recurringTransaction.getStartDate());
+        dateEntry.setDisable(true);
+        descEntry.setText(recurringTransaction.getName());
+        amountEntry.setText(Money.format(recurringTransaction.getAmount()));
+    }
 }
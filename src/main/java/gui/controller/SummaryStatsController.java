@@ -1,25 +1,49 @@
 package gui.controller;
 
+import database.records.PayeeTotalRow;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
+import structure.Account;
+import structure.Money;
+import structure.SummaryStats;
+import structure.TopExpenses;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class SummaryStatsController {
+    // Months shown by the monthly expenses chart, ending with the latest month
+    private static final int MONTHS_SHOWN = 12;
+
+    // Payees shown by the top expenses chart
+    private static final int TOP_PAYEES = 10;
+
     @FXML
     public Label income;
     @FXML
     public Label expenses;
 
     @FXML
-    public LineChart balanceToYearLineChart;
+    public LineChart<String, Number> balanceToYearLineChart;
     @FXML
-    public LineChart incomeToYearLineChart;
+    public LineChart<String, Number> incomeToYearLineChart;
     @FXML
-    public LineChart expensesToYearLineChart;
+    public LineChart<String, Number> expensesToYearLineChart;
     @FXML
-    public BarChart expensesToMonthBarChart;
+    public BarChart<String, Number> expensesToMonthBarChart;
 
     @FXML
     public PieChart withdrawsPieGraph;
@@ -28,6 +52,77 @@ public class SummaryStatsController {
     @FXML
     public PieChart topExpensesPieGraph;
 
+    /**
+     * Computes the statistics and top payees of the selected accounts off the JavaFX Application Thread,
+     * then fills every label and chart with them. If either computation fails, the failure is reported
+     * on the JavaFX Application Thread instead.
+     *
+     * @param accounts the accounts to summarize.
+     */
+    public void showAccounts(Account... accounts) {
+        int[] accIds = new int[accounts.length];
+        Map<Integer, String> names = new HashMap<>();
+        for (int i = 0; i < accounts.length; i++) {
+            accIds[i] = accounts[i].getId();
+            names.put(accIds[i], accounts[i].getName());
+        }
+        CompletableFuture<List<PayeeTotalRow>> payees =
+                CompletableFuture.supplyAsync(() -> TopExpenses.payees(TOP_PAYEES, accIds, null, null));
+        CompletableFuture.supplyAsync(() -> SummaryStats.of(accIds))
+                .thenAcceptBoth(payees, (stats, top) -> Platform.runLater(() -> show(stats, top, names)))
+                .exceptionally(failure -> {
+                    Platform.runLater(() -> showFailure(failure));
+                    return null;
+                });
+    }
+
+    private void showFailure(Throwable failure) {
+        // Failures of the async stages arrive wrapped
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        income.setText("Income: unavailable");
+        expenses.setText("Expenses: unavailable");
+        new Alert(Alert.AlertType.ERROR, "Failed to compute summary statistics: " + cause.getMessage()).show();
+    }
+
+    private void show(SummaryStats stats, List<PayeeTotalRow> topPayees, Map<Integer, String> names) {
+        income.setText("Income: " + Money.format(stats.getIncome()));
+        expenses.setText("Expenses: " + Money.format(stats.getExpenses()));
+
+        setSeries(balanceToYearLineChart, stats.getYearEndBalances());
+        setSeries(incomeToYearLineChart, stats.getYearlyIncome());
+        setSeries(expensesToYearLineChart, stats.getYearlyExpenses());
+
+        SortedMap<YearMonth, Long> monthly = stats.getMonthlyExpenses();
+        if (!monthly.isEmpty()) monthly = monthly.tailMap(monthly.lastKey().minusMonths(MONTHS_SHOWN - 1));
+        setSeries(expensesToMonthBarChart, monthly);
+
+        setSlices(withdrawsPieGraph, stats.getWithdrawalsByAccount(), names);
+        setSlices(depositsPieGraph, stats.getDepositsByAccount(), names);
+
+        ObservableList<PieChart.Data> top = FXCollections.observableArrayList();
+        for (PayeeTotalRow payee : topPayees) {
+            top.add(new PieChart.Data(payee.name(), toDollars(payee.total())));
+        }
+        topExpensesPieGraph.setData(top);
+    }
+
+    private static void setSeries(XYChart<String, Number> chart, Map<?, Long> totals) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        totals.forEach((key, cents) -> series.getData().add(new XYChart.Data<>(key.toString(), toDollars(cents))));
+        chart.getData().setAll(List.of(series));
+    }
+
+    private static void setSlices(PieChart chart, Map<Integer, Long> totals, Map<Integer, String> names) {
+        ObservableList<PieChart.Data> slices = FXCollections.observableArrayList();
+        totals.forEach((accId, cents) -> slices.add(new PieChart.Data(names.get(accId), toDollars(cents))));
+        chart.setData(slices);
+    }
+
+    private static double toDollars(long cents) {
+        return cents / 100.0;
+    }
+
     @FXML
     public void goBack(){
 
@@ -1,6 +1,8 @@
 package structure;
 
+import database.RecurringScheduler;
 import database.SqlManager;
+import database.WriteBehindQueue;
 import database.enums.RecurringRate;
 import database.enums.TransactionType;
 import database.records.AccountRow;
@@ -8,9 +10,10 @@ import database.records.RecurringTransactionRow;
 import database.records.TransactionRow;
 
 import java.time.LocalDate;
-import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents an account with its associated transactions and recurring transactions.
@@ -20,9 +23,20 @@ public class Account {
     // Static database connection shared across all Account instances
     private static final SqlManager dbConn = SqlManager.DB_CONNECTION;
 
-    // Lists to hold transactions and recurring transactions for this account
-    private final List<Transaction> transactions;
-    private final List<RecurringTransaction> recurringTransactions;
+    // Static queue writing edits to the database in the background, shared across all Account instances
+    private static final WriteBehindQueue writeQueue = WriteBehindQueue.QUEUE;
+
+    // Static scheduler posting due recurring transactions, shared across all Account instances
+    private static final RecurringScheduler scheduler = RecurringScheduler.SCHEDULER;
+
+    // The one live Account of each loaded row, by account ID, so every live transaction has exactly one owner.
+    // Entries leave when the account is deleted or found missing on reload
+    private static final IdentityMap<Account> LIVE = new IdentityMap<>();
+
+    // Transactions ordered by date and recurring transactions ordered by start date for this account;
+    // transactions stays null until first needed when accounts are loaded lazily
+    private Ledger<Transaction> transactions;
+    private Ledger<RecurringTransaction> recurringTransactions;
 
     // Account details
     private final int id;
@@ -30,45 +44,131 @@ public class Account {
     private String card;
     private String bank;
 
+    // Cached balance in cents, valid while the database is still at balanceVersion
+    private long balance;
+    private long balanceVersion;
+
+    // Data version that never matches, forcing the balance to be read on first use
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
     /**
      * Constructor that initializes an Account instance using data from the database.
      * It loads associated transactions and recurring transactions for the account.
+     * The balance in {@code row} is not trusted and is read again on first use.
+     * To load every account, {@link #getAccounts()} needs far fewer queries.
      *
      * @param row the database record representing the account.
+     * @throws IllegalStateException if the account is already loaded; {@link #getAccounts()} returns it.
      */
     public Account(AccountRow row) {
-        this.id = row.id();
-        this.name = row.name();
-        this.card = row.card();
-        this.bank = row.bank();
-
-        this.transactions = new ArrayList<>();
-        this.recurringTransactions = new ArrayList<>();
-
-        // Load existing transactions from the database
-        for (TransactionRow tranRow : dbConn.getTransactions(id)) {
-            transactions.add(new Transaction(tranRow, this));
+        this(row, UNKNOWN_VERSION);
+        if (LIVE.putIfAbsent(id, this) != null) {
+            throw new IllegalStateException("Account " + id + " is already loaded");
         }
+        loadTransactions();
 
         // Load existing recurring transactions from the database
         for (RecurringTransactionRow recurRow : dbConn.getRecurringTransactions(id)) {
-            recurringTransactions.add(new RecurringTransaction(recurRow, this));
+            recurringTransactions.insert(RecurringTransaction.of(recurRow, this));
         }
     }
 
     /**
+     * Constructor that initializes an Account instance using data from the database, trusting its balance.
+     * Neither transactions nor recurring transactions are loaded; the caller fills them in.
+     *
+     * @param row         the database record representing the account.
+     * @param readVersion the data version read before {@code row} was queried.
+     */
+    private Account(AccountRow row, long readVersion) {
+        this.id = row.id();
+        this.name = row.name();
+        this.card = row.card();
+        this.bank = row.bank();
+        this.balance = row.balance();
+        this.balanceVersion = readVersion;
+
+        this.recurringTransactions = newRecurringLedger();
+    }
+
+    /**
+     * Loads every account along with its transactions and recurring transactions.
+     * Each table is read with one query ordered by account, so opening any number of accounts takes three queries.
      *
-     * @return Array os all accounts in the database
+     * @return Array of all accounts in the database
      */
     public static Account[] getAccounts(){
+        return getAccounts(false);
+    }
+
+    /**
+     * Loads every account along with its recurring transactions, and optionally its transactions.
+     * Each table is read with one query ordered by account and its rows are routed to their accounts in one pass.
+     * Accounts that are already loaded are returned again, keeping their edits not yet written, and their
+     * ledgers are refilled from the database; rows and accounts that are gone are dropped from the live objects.
+     * Called on the JavaFX Application Thread only, like every mutator of the structure layer.
+     *
+     * @param lazyTransactions whether to defer loading each account's transactions until
+     *                         {@link #getTransactions()} is first called on it. Accounts whose
+     *                         transactions are already loaded have them reloaded regardless.
+     * @return Array of all accounts in the database
+     */
+    public static Account[] getAccounts(boolean lazyTransactions){
+        long version = dbConn.getDataVersion();
         List<AccountRow> rows = dbConn.getAccounts();
         Account[] accounts = new Account[rows.size()];
+        Set<Integer> ids = new HashSet<>();
 
         for (int i=0; i < rows.size(); i++){
-            accounts[i] = new Account(rows.get(i));
+            AccountRow row = rows.get(i);
+            Account account = LIVE.get(row.id());
+            if (account == null) {
+                account = new Account(row, version);
+                LIVE.putIfAbsent(row.id(), account);
+            }
+            accounts[i] = account;
+            ids.add(row.id());
+        }
+        for (Account gone : LIVE.values()) {
+            if (!ids.contains(gone.id)) gone.forgetAll();
+        }
+
+        List<Ledger<RecurringTransaction>> oldRecurring = new ArrayList<>(accounts.length);
+        for (Account account : accounts) {
+            oldRecurring.add(account.recurringTransactions);
+            account.recurringTransactions = newRecurringLedger();
+        }
+        AccountRouter recurRouter = new AccountRouter(accounts);
+        for (RecurringTransactionRow recurRow : dbConn.getRecurringTransactions()) {
+            Account account = recurRouter.find(recurRow.acc_id());
+            if (account != null) account.recurringTransactions.insert(RecurringTransaction.of(recurRow, account));
+        }
+
+        List<Ledger<Transaction>> oldTransactions = new ArrayList<>(accounts.length);
+        boolean anyTransactions = false;
+        for (Account account : accounts) {
+            oldTransactions.add(account.transactions);
+            if (!lazyTransactions || account.transactions != null) {
+                account.transactions = newTransactionLedger();
+                anyTransactions = true;
+            }
+        }
+        if (anyTransactions) {
+            AccountRouter tranRouter = new AccountRouter(accounts);
+            dbConn.forEachTransaction(tranRow -> {
+                Account account = tranRouter.find(tranRow.acc_id());
+                if (account != null && account.transactions != null) {
+                    account.transactions.insert(Transaction.of(tranRow, account));
+                }
+            });
+        }
+
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i].forgetDropped(oldTransactions.get(i), oldRecurring.get(i));
         }
         return accounts;
     }
+
     /**
      * Creates and returns a new Account instance, adding it to the database.
      *
@@ -78,12 +178,14 @@ public class Account {
      * @return a new Account instance.
      */
     public static Account createNewAccount(String name, String card, String bank) {
-        return new Account(
-                new AccountRow(
-                        dbConn.addAccount(name, card, bank),
-                        0, name, card, bank
-                )
-        );
+        long version = dbConn.getDataVersion();
+        int accId = dbConn.addAccount(name, card, bank);
+        // A new account starts at zero; trusted only if nothing else was written meanwhile
+        long readVersion = dbConn.getDataVersion() == version + 1 ? version + 1 : UNKNOWN_VERSION;
+        Account account = new Account(new AccountRow(accId, 0, name, card, bank), readVersion);
+        account.transactions = newTransactionLedger();
+        LIVE.putIfAbsent(accId, account);
+        return account;
     }
 
     /**
@@ -92,20 +194,55 @@ public class Account {
      * @param date   the transaction date.
      * @param name   the transaction description.
      * @param type   the type of transaction (e.g., debit or credit).
-     * @param amount the amount involved in the transaction.
+     * @param amount the amount involved in the transaction, in cents.
      */
-    public void addNewTransaction(LocalDate date, String name, TransactionType type, float amount) {
-        transactions.add(
-                new Transaction(
+    public void addNewTransaction(LocalDate date, String name, TransactionType type, long amount) {
+        Ledger<Transaction> ledger = loadTransactions();
+        long version = dbConn.getDataVersion();
+        ledger.insert(
+                Transaction.of(
                         new TransactionRow(
                                 dbConn.addTransaction(id, date, name, type, amount, false),
                                 id,
-                                date.atStartOfDay().toEpochSecond(ZoneOffset.UTC),
-                                name, type, amount, false
+                                (int) date.toEpochDay(),
+                                name, type, amount, false, TransactionRow.NO_RECURRING_TRANSACTION
                         ),
                         this
                 )
         );
+        wroteBalanceChange(version, type == TransactionType.DEPOSIT ? amount : -amount);
+    }
+
+    /**
+     * Adds many transactions to the account at once, such as a statement imported from the bank, and
+     * persists them in a single database commit. Much faster than calling
+     * {@link #addNewTransaction(LocalDate, String, TransactionType, long)} once per transaction.
+     *
+     * @param rows the transactions to add; their IDs and account IDs are ignored.
+     */
+    public void addNewTransactions(List<TransactionRow> rows) {
+        Ledger<Transaction> ledger = loadTransactions();
+        List<TransactionRow> owned = new ArrayList<>(rows.size());
+        long delta = 0;
+        for (TransactionRow row : rows) {
+            owned.add(new TransactionRow(0, id, row.date(), row.name(), row.type(), row.amount(), false,
+                    TransactionRow.NO_RECURRING_TRANSACTION));
+            delta += row.type() == TransactionType.DEPOSIT ? row.amount() : -row.amount();
+        }
+
+        long version = dbConn.getDataVersion();
+        int[] ids = dbConn.addTransactions(owned);
+        for (int i = 0; i < ids.length; i++) {
+            TransactionRow row = owned.get(i);
+            ledger.insert(
+                    Transaction.of(
+                            new TransactionRow(ids[i], id, row.date(), row.name(), row.type(), row.amount(), false,
+                                    TransactionRow.NO_RECURRING_TRANSACTION),
+                            this
+                    )
+            );
+        }
+        wroteBalanceChange(version, delta);
     }
 
     /**
@@ -115,16 +252,18 @@ public class Account {
      * @param name      the description of the transaction.
      * @param type      the type of transaction (e.g., debit or credit).
      * @param rate      the recurrence rate (e.g., daily, monthly).
-     * @param amount    the amount involved in the recurring transaction.
+     * @param amount    the amount involved in the recurring transaction, in cents.
      */
-    public void addNewRecurringTransaction(LocalDate startDate, String name, TransactionType type, RecurringRate rate, float amount) {
-        recurringTransactions.add(
-                new RecurringTransaction(
+    public void addNewRecurringTransaction(LocalDate startDate, String name, TransactionType type, RecurringRate rate, long amount) {
+        int recurId = dbConn.addRecurringTransaction(id, startDate, name, type, rate, amount);
+        scheduler.reschedule(recurId);
+        recurringTransactions.insert(
+                RecurringTransaction.of(
                         new RecurringTransactionRow(
-                                dbConn.addRecurringTransaction(id, startDate, name, type, rate, amount),
+                                recurId,
                                 id,
-                                startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC),
-                                name, type, rate, amount, -1
+                                (int) startDate.toEpochDay(),
+                                name, type, rate, amount, RecurringTransactionRow.NEVER_TRANSACTED
                         ),
                         this
                 )
@@ -132,21 +271,36 @@ public class Account {
     }
 
     /**
-     * Retrieves all transactions associated with this account.
+     * Retrieves all transactions associated with this account, ordered by date and then by ID.
+     * The list is a read-only view, not a copy: it follows later changes to the account, and iterating it
+     * after a transaction is added, deleted or re-dated throws {@link java.util.ConcurrentModificationException}.
      *
-     * @return a list of transactions.
+     * @return a read-only view of the transactions.
      */
     public List<Transaction> getTransactions() {
-        return new ArrayList<>(transactions);
+        return loadTransactions();
+    }
+
+    /**
+     * Retrieves the transactions of this account dated within a range, ordered by date and then by ID.
+     * The range is found by binary search and returned as a read-only view, like {@link #getTransactions()}.
+     *
+     * @param from the first date to include.
+     * @param to   the last date to include.
+     * @return a read-only view of the transactions in the range.
+     */
+    public List<Transaction> getTransactions(LocalDate from, LocalDate to) {
+        return loadTransactions().between(toEpochDay(from), toEpochDay(to));
     }
 
     /**
-     * Retrieves all recurring transactions associated with this account.
+     * Retrieves all recurring transactions associated with this account, ordered by start date and then by ID.
+     * The list is a read-only view, like {@link #getTransactions()}.
      *
-     * @return a list of recurring transactions.
+     * @return a read-only view of the recurring transactions.
      */
     public List<RecurringTransaction> getRecurringTransactions() {
-        return new ArrayList<>(recurringTransactions);
+        return recurringTransactions;
     }
 
     /**
@@ -160,11 +314,46 @@ public class Account {
 
     /**
      * Retrieves the current balance of the account.
+     * The balance is kept in memory and follows every change made through this account and its
+     * transactions, including queued edits; it is only read from the database again once
+     * {@link SqlManager#getDataVersion()} shows that something else has written to it.
+     *
+     * @return the account balance, in cents.
+     * @see Money#format(long)
+     */
+    public long getBalance() {
+        long version = dbConn.getDataVersion();
+        if (version != balanceVersion) {
+            // The stored balance does not include queued edits yet, so their changes are added instead of
+            // waiting for them to be written
+            balance = dbConn.getBalance(id, writeQueue);
+            balanceVersion = version;
+        }
+        return balance;
+    }
+
+    /**
+     * Applies a balance change that is queued but not yet written to the cached balance.
+     *
+     * @param delta the change in cents.
+     */
+    void adjustCachedBalance(long delta) {
+        balance += delta;
+    }
+
+    /**
+     * Applies a balance change this account just wrote to the cached balance, keeping the cache valid
+     * when that write was the only one since {@code versionBefore}. Otherwise the cache is left to be
+     * reloaded.
      *
-     * @return the account balance.
+     * @param versionBefore the data version read right before the write.
+     * @param delta         the change in cents.
      */
-    public float getBalance() {
-        return Math.round(dbConn.getAccount(id).balance() * 100) / 100.0f;
+    private void wroteBalanceChange(long versionBefore, long delta) {
+        if (balanceVersion == versionBefore && dbConn.getDataVersion() == versionBefore + 1) {
+            balance += delta;
+            balanceVersion = versionBefore + 1;
+        }
     }
 
     /**
@@ -195,32 +384,32 @@ public class Account {
     }
 
     /**
-     * Updates the account's name in the database and locally.
+     * Updates the account's name locally and queues the change to be written to the database.
      *
      * @param name the new account name.
      */
     public void setName(String name) {
-        dbConn.setAccountName(id, name);
+        writeQueue.setAccountName(id, name);
         this.name = name;
     }
 
     /**
-     * Updates the card associated with the account in the database and locally.
+     * Updates the card associated with the account locally and queues the change to be written to the database.
      *
      * @param card the new card identifier.
      */
     public void setCard(String card) {
-        dbConn.setAccountCard(id, card);
+        writeQueue.setAccountCard(id, card);
         this.card = card;
     }
 
     /**
-     * Updates the bank name associated with the account in the database and locally.
+     * Updates the bank name associated with the account locally and queues the change to be written to the database.
      *
      * @param bank the new bank name.
      */
     public void setBank(String bank) {
-        dbConn.setAccountBank(id, bank);
+        writeQueue.setAccountBank(id, bank);
         this.bank = bank;
     }
 
@@ -228,7 +417,44 @@ public class Account {
      * Deletes the account from the database.
      */
     public void deleteAccount() {
+        writeQueue.discardAccount(id);
         dbConn.deleteAccount(id);
+
+        // The rows of the account's transactions are gone with it
+        forgetAll();
+    }
+
+    /**
+     * Drops the account and everything it holds from the live objects, once its row is gone.
+     */
+    private void forgetAll() {
+        LIVE.remove(id);
+        if (transactions != null) {
+            for (Transaction transaction : transactions) {
+                Transaction.forget(transaction.getId());
+            }
+        }
+        for (RecurringTransaction recurringTransaction : recurringTransactions) {
+            RecurringTransaction.forget(recurringTransaction.getId());
+        }
+    }
+
+    /**
+     * Drops the live objects of rows that a reload no longer found, comparing the ledgers before the reload
+     * with the current ones.
+     *
+     * @param oldTransactions the transaction ledger before the reload, or {@code null} if none was loaded.
+     * @param oldRecurring    the recurring transaction ledger before the reload.
+     */
+    private void forgetDropped(Ledger<Transaction> oldTransactions, Ledger<RecurringTransaction> oldRecurring) {
+        if (oldTransactions != null && oldTransactions != transactions) {
+            for (Transaction transaction : oldTransactions) {
+                if (transactions == null || !transactions.holds(transaction)) Transaction.forget(transaction.getId());
+            }
+        }
+        for (RecurringTransaction recurringTransaction : oldRecurring) {
+            if (!recurringTransactions.holds(recurringTransaction)) RecurringTransaction.forget(recurringTransaction.getId());
+        }
     }
 
     /**
@@ -237,13 +463,17 @@ public class Account {
      * @param tranId the ID of the transaction to delete.
      */
     protected void deleteTransaction(int tranId) {
-        for (int i = 0; i < transactions.size(); i++) {
-            if (transactions.get(i).getId() == tranId) {
-                dbConn.deleteTransaction(tranId);
-                transactions.remove(i);
-                break;
-            }
-        }
+        Transaction transaction = Transaction.find(tranId);
+        if (transaction == null || !loadTransactions().holds(transaction)) return;
+
+        // The in-memory transaction includes queued edits, which the cached balance already counts
+        long delta = -transaction.getSignedAmount();
+        writeQueue.discardTransaction(tranId);
+        long version = dbConn.getDataVersion();
+        dbConn.deleteTransaction(tranId);
+        wroteBalanceChange(version, delta);
+        transactions.delete(transaction);
+        Transaction.forget(tranId);
     }
 
     /**
@@ -252,12 +482,81 @@ public class Account {
      * @param recurId the ID of the recurring transaction to delete.
      */
     protected void deleteRecurringTransaction(int recurId) {
-        for (int i = 0; i < recurringTransactions.size(); i++) {
-            if (recurringTransactions.get(i).getId() == recurId) {
-                dbConn.deleteRecurringTransaction(recurId);
-                recurringTransactions.remove(i);
-                break;
+        RecurringTransaction recurringTransaction = RecurringTransaction.find(recurId);
+        if (recurringTransaction == null || !recurringTransactions.holds(recurringTransaction)) return;
+
+        writeQueue.discardRecurringTransaction(recurId);
+        dbConn.deleteRecurringTransaction(recurId);
+        scheduler.reschedule(recurId);
+        recurringTransactions.delete(recurringTransaction);
+        RecurringTransaction.forget(recurId);
+    }
+
+    /**
+     * Moves a transaction whose date changed to its new place in date order.
+     *
+     * @param transaction the transaction, already carrying its new date.
+     * @param oldDay      its previous date, in days since 1970-01-01.
+     */
+    void moveTransaction(Transaction transaction, int oldDay) {
+        if (transactions != null) transactions.move(transaction, oldDay);
+    }
+
+    /**
+     * Retrieves the account's transactions, reading them from the database the first time.
+     *
+     * @return the live ledger of transactions.
+     */
+    private Ledger<Transaction> loadTransactions() {
+        if (transactions == null) {
+            transactions = newTransactionLedger();
+            // Rows arrive ordered by date and ID, so each one is appended without searching
+            for (TransactionRow tranRow : dbConn.getTransactions(id)) {
+                transactions.insert(Transaction.of(tranRow, this));
+            }
+        }
+        return transactions;
+    }
+
+    private static Ledger<Transaction> newTransactionLedger() {
+        return new Ledger<>(Transaction::getEpochDay, Transaction::getId);
+    }
+
+    private static Ledger<RecurringTransaction> newRecurringLedger() {
+        return new Ledger<>(RecurringTransaction::getStartEpochDay, RecurringTransaction::getId);
+    }
+
+    /**
+     * Converts a date to days since 1970-01-01, clamped to the range of an {@code int}
+     * so {@link LocalDate#MIN} and {@link LocalDate#MAX} can serve as open bounds.
+     */
+    private static int toEpochDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    /**
+     * Finds the account of each row in a pass over rows ordered by account ID,
+     * advancing through accounts ordered the same way instead of searching for each row.
+     */
+    private static final class AccountRouter {
+        private final Account[] accounts;
+        private int position;
+
+        private AccountRouter(Account[] accounts) {
+            this.accounts = accounts;
+        }
+
+        /**
+         * Finds the account with an ID not smaller than that of any previous call.
+         *
+         * @param accId the account ID of the current row.
+         * @return the account, or {@code null} if it was not loaded.
+         */
+        private Account find(int accId) {
+            while (position < accounts.length && accounts[position].id < accId) {
+                position++;
             }
+            return position < accounts.length && accounts[position].id == accId ? accounts[position] : null;
         }
     }
 }
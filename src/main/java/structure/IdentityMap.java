@@ -0,0 +1,150 @@
+package structure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps database IDs to the one live object loaded for each row.
+ * Keys are kept in a primitive {@code int} array with open addressing and linear probing, so lookups,
+ * inserts and removals take constant time without boxing the ID or allocating an entry per mapping.
+ * Every method is synchronized, so lookups are safe from any thread; the mapped objects themselves are
+ * confined to the JavaFX Application Thread like the rest of the structure layer.
+ * Nothing is evicted on its own: owners remove the IDs of rows that are deleted or no longer loaded.
+ *
+ * @param <V> the type of the mapped objects.
+ */
+final class IdentityMap<V> {
+
+    private static final int INITIAL_CAPACITY = 64;  // Must be a power of two
+
+    private int[] keys;
+    private Object[] values;  // A null value marks an empty slot
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    IdentityMap() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Retrieves the object mapped to an ID.
+     *
+     * @param id the ID to look up.
+     * @return the mapped object, or {@code null} if none is mapped.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized V get(int id) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(id, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) return (V) values[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Maps an ID to an object unless the ID is already mapped.
+     *
+     * @param id    the ID.
+     * @param value the object to map, not {@code null}.
+     * @return the object already mapped to the ID, or {@code null} if {@code value} was mapped.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized V putIfAbsent(int id, V value) {
+        if (value == null) throw new NullPointerException("Cannot map ID " + id + " to null");
+        int mask = keys.length - 1;
+        int slot = slotOf(id, mask);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) return (V) values[slot];
+        }
+        keys[slot] = id;
+        values[slot] = value;
+        // Kept at most half full so probe sequences stay short
+        if (++size > keys.length >> 1) resize(keys.length << 1);
+        return null;
+    }
+
+    /**
+     * Removes the mapping of an ID.
+     *
+     * @param id the ID to remove.
+     * @return the object that was mapped, or {@code null} if none was.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized V remove(int id) {
+        int mask = keys.length - 1;
+        int slot = slotOf(id, mask);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) break;
+        }
+        V removed = (V) values[slot];
+        if (removed == null) return null;
+
+        // Shift later entries of the probe sequence back so no lookup stops early at the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slotOf(keys[next], mask);
+            // Move the entry unless its home lies cyclically within (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Retrieves the number of mapped IDs.
+     *
+     * @return the number of mappings.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves a snapshot of the mapped objects, in no particular order.
+     *
+     * @return the mapped objects.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized List<V> values() {
+        List<V> mapped = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) mapped.add((V) value);
+        }
+        return mapped;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = slotOf(oldKeys[i], mask);
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Computes the home slot of an ID, scrambling its bits so consecutive IDs spread out.
+     *
+     * @param id   the ID.
+     * @param mask the table length minus one.
+     * @return the slot index.
+     */
+    private static int slotOf(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,168 @@
+package structure;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.ToIntFunction;
+
+/**
+ * The live, date-ordered list of an account's transactions or recurring transactions.
+ * Elements are kept sorted by (epoch day, ID), so date ranges are found by binary search and returned
+ * as sub-list views instead of copies. Callers only get read access: the {@link List} mutators throw
+ * {@link UnsupportedOperationException}, and the owning account changes the ledger through the
+ * package-private methods, each counted in {@code modCount} so iterators and views fail fast.
+ *
+ * @param <E> the type of the elements.
+ */
+final class Ledger<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ToIntFunction<E> dayOf;
+    private final ToIntFunction<E> idOf;
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Creates an empty ledger.
+     *
+     * @param dayOf the date an element is ordered by, in days since 1970-01-01.
+     * @param idOf  the ID ordering elements on the same day.
+     */
+    Ledger(ToIntFunction<E> dayOf, ToIntFunction<E> idOf) {
+        this.dayOf = dayOf;
+        this.idOf = idOf;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves a read-only view of the elements dated within a range, found by binary search.
+     *
+     * @param fromDay the first day to include, in days since 1970-01-01.
+     * @param toDay   the last day to include, in days since 1970-01-01.
+     * @return a view of the elements in the range, in order; it fails fast once the ledger changes.
+     */
+    List<E> between(int fromDay, int toDay) {
+        int from = firstOnOrAfter(fromDay);
+        int to = Math.max(from, firstOnOrAfter(toDay + 1L));
+        return subList(from, to);
+    }
+
+    /**
+     * Inserts an element at its place in date order. Elements arriving in order are appended directly.
+     *
+     * @param element the element to insert.
+     */
+    void insert(E element) {
+        int day = dayOf.applyAsInt(element);
+        int id = idOf.applyAsInt(element);
+        int index = size == 0 || compareAt(size - 1, day, id) < 0 ? size : -(search(day, id, null) + 1);
+        if (index < 0) throw new IllegalStateException("Element with ID " + id + " is already in the ledger");
+
+        if (size == elements.length) elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Indicates whether this exact element is in the ledger, found by binary search.
+     *
+     * @param element the element to look for.
+     * @return {@code true} if the ledger holds it.
+     */
+    boolean holds(E element) {
+        int index = search(dayOf.applyAsInt(element), idOf.applyAsInt(element), null);
+        return index >= 0 && elements[index] == element;
+    }
+
+    /**
+     * Removes an element, found by binary search.
+     *
+     * @param element the element to remove.
+     * @return {@code true} if it was in the ledger.
+     */
+    boolean delete(E element) {
+        return delete(element, dayOf.applyAsInt(element));
+    }
+
+    /**
+     * Moves an element whose date changed to its new place in date order.
+     *
+     * @param element the element, already carrying its new date.
+     * @param oldDay  the date it is currently ordered by.
+     */
+    void move(E element, int oldDay) {
+        if (delete(element, oldDay)) insert(element);
+    }
+
+    private boolean delete(E element, int day) {
+        int index = search(day, idOf.applyAsInt(element), element);
+        if (index < 0 || elements[index] != element) return false;
+
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Binary searches for the element with a key.
+     * An element being moved already carries its new date but still sits at its old place, so it is
+     * passed as {@code self} and taken to match the key it is searched by.
+     *
+     * @return the index of the element, or {@code -(insertion point) - 1} if none has the key.
+     */
+    private int search(int day, int id, E self) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = elements[mid] == self ? 0 : compareAt(mid, day, id);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Finds the index of the first element dated on or after a day, or {@link #size} if there is none.
+     */
+    private int firstOnOrAfter(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dayAt(mid) < day) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int dayAt(int index) {
+        return dayOf.applyAsInt((E) elements[index]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compareAt(int index, int day, int id) {
+        E element = (E) elements[index];
+        int cmp = Integer.compare(dayOf.applyAsInt(element), day);
+        return cmp != 0 ? cmp : Integer.compare(idOf.applyAsInt(element), id);
+    }
+}
@@ -0,0 +1,42 @@
+package structure;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between the integer cents used for every amount and balance, and their text form.
+ * Amounts are kept as {@code long} cents end to end so sums are exact; dollars only appear at the UI edge.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Parses a dollar amount such as "12.5" or "-3.07" into cents.
+     *
+     * @param dollars the amount in dollars.
+     * @return the amount in cents.
+     * @throws NumberFormatException if the text is not a number or has more than two decimal places.
+     */
+    public static long parse(String dollars) {
+        try {
+            return new BigDecimal(dollars.trim())
+                    .setScale(2, RoundingMode.UNNECESSARY)
+                    .movePointRight(2)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Not a valid amount of money: " + dollars);
+        }
+    }
+
+    /**
+     * Formats an amount in cents as dollars with two decimal places, e.g. 1205 as "12.05".
+     *
+     * @param cents the amount in cents.
+     * @return the amount in dollars.
+     */
+    public static String format(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+}
@@ -1,13 +1,16 @@
 package structure;
 
+import database.RecurringScheduler;
 import database.SqlManager;
+import database.WriteBehindQueue;
 import database.enums.RecurringRate;
 import database.enums.TransactionType;
 import database.records.RecurringTransactionRow;
 
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Represents a recurring transaction associated with an account.
@@ -17,17 +20,68 @@ public class RecurringTransaction {
     // Static database connection shared across all RecurringTransaction instances
     private static final SqlManager dbConn = SqlManager.DB_CONNECTION;
 
+    // Static queue writing edits to the database in the background, shared across all RecurringTransaction instances
+    private static final WriteBehindQueue writeQueue = WriteBehindQueue.QUEUE;
+    // Static scheduler posting due occurrences, told about edits that change what is posted
+    private static final RecurringScheduler scheduler = RecurringScheduler.SCHEDULER;
+
+    // The one live RecurringTransaction of each loaded row, by recurring transaction ID
+    private static final IdentityMap<RecurringTransaction> LIVE = new IdentityMap<>();
+
     // The account this recurring transaction belongs to
     private final Account account;
 
     // Recurring transaction details
     private final int id;  // Unique identifier for the recurring transaction
     private final int accId;  // Account ID associated with the recurring transaction
-    private final LocalDate startDate;  // Start date of the recurring transaction
+    private final int startDate;  // Start date of the recurring transaction, in days since 1970-01-01
     private String name;  // Name/description of the transaction
     private TransactionType type;  // Type of transaction (e.g., debit, credit)
     private RecurringRate recurringRate;  // Frequency of recurrence
-    private float amount;  // Amount of the recurring transaction
+    private long amount;  // Amount of the recurring transaction, in cents
+
+    /**
+     * Retrieves the live RecurringTransaction of a database row, creating it the first time the row is loaded.
+     * A row that is loaded again keeps its existing object, including any edits not yet written.
+     * Called on the JavaFX Application Thread only, like every mutator of the structure layer.
+     *
+     * @param row     the database record representing the recurring transaction.
+     * @param account the account associated with this recurring transaction.
+     * @return the one live RecurringTransaction for the row.
+     * @throws IllegalStateException if the row is already live under a different Account object.
+     */
+    static RecurringTransaction of(RecurringTransactionRow row, Account account) {
+        RecurringTransaction live = LIVE.get(row.id());
+        if (live == null) {
+            RecurringTransaction created = new RecurringTransaction(row, account);
+            live = LIVE.putIfAbsent(row.id(), created);
+            if (live == null) return created;
+        }
+        // Accounts are shared the same way, so a second Account object for the row's account is a bug
+        if (live.account != account) {
+            throw new IllegalStateException("RecurringTransaction " + row.id() + " already belongs to another Account object");
+        }
+        return live;
+    }
+
+    /**
+     * Finds the live RecurringTransaction of a loaded row without querying the database.
+     *
+     * @param id the recurring transaction ID.
+     * @return the recurring transaction, or {@code null} if its row is not loaded.
+     */
+    public static RecurringTransaction find(int id) {
+        return LIVE.get(id);
+    }
+
+    /**
+     * Drops a deleted recurring transaction from the live objects.
+     *
+     * @param id the recurring transaction ID.
+     */
+    static void forget(int id) {
+        LIVE.remove(id);
+    }
 
     /**
      * Constructor that initializes a RecurringTransaction instance using data from the database.
@@ -35,12 +89,10 @@ public class RecurringTransaction {
      * @param row     the database record representing the recurring transaction.
      * @param account the account associated with this recurring transaction.
      */
-    public RecurringTransaction(RecurringTransactionRow row, Account account) {
+    private RecurringTransaction(RecurringTransactionRow row, Account account) {
         this.id = row.id();
         this.accId = row.acc_id();
-        this.startDate = Instant.ofEpochSecond((long) row.start_date())
-                .atZone(ZoneOffset.UTC)
-                .toLocalDate();
+        this.startDate = row.start_date();
         this.name = row.name();
         this.type = row.type();
         this.recurringRate = row.recurringRate();
@@ -72,6 +124,15 @@ public class RecurringTransaction {
      * @return the start date.
      */
     public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(startDate);
+    }
+
+    /**
+     * Retrieves the start date of the recurring transaction without creating a {@link LocalDate}.
+     *
+     * @return the start date, in days since 1970-01-01.
+     */
+    public int getStartEpochDay() {
         return startDate;
     }
 
@@ -103,53 +164,89 @@ public class RecurringTransaction {
     }
 
     /**
-     * Retrieves the amount involved in the transaction, rounded to two decimal places.
+     * Retrieves the amount involved in the transaction.
      *
-     * @return the transaction amount rounded to two decimal places.
+     * @return the transaction amount, in cents.
+     * @see Money#format(long)
      */
-    public float getAmount() {
-        return Math.round(amount * 100.0f) / 100.0f;
+    public long getAmount() {
+        return amount;
     }
 
     /**
-     * Updates the name/description of the recurring transaction.
+     * Updates the name/description of the recurring transaction and queues the change to be written to the database.
      *
      * @param name the new transaction name.
      */
     public void setName(String name) {
+        writeQueue.setRecurringTransactionName(id, name);
         this.name = name;
     }
 
     /**
-     * Updates the type of the recurring transaction and persists the change in the database.
+     * Updates the type of the recurring transaction and queues the change to be written to the database.
      *
      * @param type the new transaction type.
      */
     public void setType(TransactionType type) {
-        dbConn.setRecurringTransactionType(id, type.toString());
+        writeQueue.setRecurringTransactionType(id, type);
         this.type = type;
     }
 
     /**
-     * Updates the recurrence rate of the recurring transaction and persists the change in the database.
+     * Updates the recurrence rate of the recurring transaction, queues the change to be written to the database
+     * and reschedules its next occurrence.
      *
      * @param recurringRate the new recurrence rate.
      */
     public void setRecurringRate(RecurringRate recurringRate) {
-        dbConn.setRecurringTransactionRate(id, recurringRate.toString());
+        writeQueue.setRecurringTransactionRate(id, recurringRate);
+        scheduler.reschedule(id);
         this.recurringRate = recurringRate;
     }
 
     /**
-     * Updates the amount of the recurring transaction and persists the change in the database.
+     * Updates the amount of the recurring transaction, queues the change to be written to the database
+     * and reschedules it so the next occurrence is posted with the new amount.
      *
-     * @param amount the new transaction amount.
+     * @param amount the new transaction amount, in cents.
      */
-    public void setAmount(float amount) {
-        dbConn.setRecurringTransactionAmount(id, amount);
+    public void setAmount(long amount) {
+        writeQueue.setRecurringTransactionAmount(id, amount);
+        scheduler.reschedule(id);
         this.amount = amount;
     }
 
+    /**
+     * Rewrites every transaction this recurring transaction posted on or after a date with its current
+     * type and amount, adjusting the account balance once. Queued edits are written first so they
+     * cannot overwrite the change afterwards.
+     * <p>
+     * Must be called on the thread that owns the account's objects, the FX application thread in the GUI.
+     * The flush and the database update run in the background; the loaded transactions are updated
+     * through {@code ownerThread} once they are written, e.g. {@code Platform::runLater}.
+     *
+     * @param from        the date of the first posting to change.
+     * @param ownerThread runs work on the thread that called this method.
+     * @return the number of postings changed, completed once the loaded transactions are updated.
+     */
+    public CompletableFuture<Integer> applyToPostings(LocalDate from, Executor ownerThread) {
+        // Read on the owner thread, since the background work must not touch the account's objects
+        TransactionType newType = type;
+        long newAmount = amount;
+        List<Transaction> postings = account.getTransactions(from, LocalDate.MAX).stream()
+                .filter(transaction -> transaction.getRecId() == id)
+                .toList();
+
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+            return dbConn.updateRecurringPostings(id, from, newType, newAmount);
+        }).thenApplyAsync(changed -> {
+            postings.forEach(transaction -> transaction.applyRecurringChange(newType, newAmount));
+            return changed;
+        }, ownerThread);
+    }
+
     /**
      * Deletes the recurring transaction from the database and removes it from the associated account.
      */
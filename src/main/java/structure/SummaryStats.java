@@ -0,0 +1,299 @@
+package structure;
+
+import database.enums.TransactionType;
+
+import java.io.Serial;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The income, expense and balance figures shown on the summary statistics screen, computed in one pass
+ * over a {@link TransactionStore}. The pass is split with fork/join: each leaf task totals a range of rows
+ * into a partial result of its own, so no worker shares or locks anything, and partial results are merged
+ * pairwise as the tasks join. Totals are kept per month; yearly figures are derived from them afterwards.
+ */
+public final class SummaryStats {
+
+    // Rows a task totals itself instead of splitting them further
+    private static final int LEAF_ROWS = 1 << 15;
+
+    private final YearMonth firstMonth;
+    private final long[] monthlyIncome;  // Cents per month, starting at firstMonth
+    private final long[] monthlyExpenses;
+    private final long income;
+    private final long expenses;
+    private final Map<Integer, Long> depositsByAccount;
+    private final Map<Integer, Long> withdrawalsByAccount;
+
+    private SummaryStats(YearMonth firstMonth, Partial totals) {
+        this.firstMonth = firstMonth;
+        this.monthlyIncome = totals.income;
+        this.monthlyExpenses = totals.expenses;
+        this.income = sum(totals.income);
+        this.expenses = sum(totals.expenses);
+
+        Map<Integer, Long> deposits = new HashMap<>();
+        Map<Integer, Long> withdrawals = new HashMap<>();
+        totals.byAccount.forEach((accId, sums) -> {
+            if (sums[0] != 0) deposits.put(accId, sums[0]);
+            if (sums[1] != 0) withdrawals.put(accId, sums[1]);
+        });
+        this.depositsByAccount = Collections.unmodifiableMap(deposits);
+        this.withdrawalsByAccount = Collections.unmodifiableMap(withdrawals);
+    }
+
+    /**
+     * Loads the transactions of specific accounts and computes their statistics.
+     *
+     * @param accIds the account IDs to include, or none for all accounts.
+     * @return the statistics of the accounts.
+     */
+    public static SummaryStats of(int... accIds) {
+        return compute(TransactionStore.load(accIds));
+    }
+
+    /**
+     * Computes the statistics of every transaction in a store, in parallel on the common fork/join pool.
+     *
+     * @param store the transactions to summarize.
+     * @return the statistics of the store.
+     */
+    public static SummaryStats compute(TransactionStore store) {
+        if (store.size() == 0) {
+            return new SummaryStats(YearMonth.now(), new Partial(0));
+        }
+        YearMonth first = YearMonth.from(LocalDate.ofEpochDay(store.firstEpochDay()));
+        YearMonth last = YearMonth.from(LocalDate.ofEpochDay(store.lastEpochDay()));
+        int months = monthIndex(last) - monthIndex(first) + 1;
+
+        Partial totals = ForkJoinPool.commonPool().invoke(new Totals(store, 0, store.size(), monthIndex(first), months));
+        return new SummaryStats(first, totals);
+    }
+
+    /**
+     * Retrieves the total of all deposits.
+     *
+     * @return the income, in cents.
+     */
+    public long getIncome() {
+        return income;
+    }
+
+    /**
+     * Retrieves the total of all withdrawals.
+     *
+     * @return the expenses, in cents.
+     */
+    public long getExpenses() {
+        return expenses;
+    }
+
+    /**
+     * Retrieves the deposits of every month from the first to the last transaction, including empty months.
+     *
+     * @return the income in cents by month, in order.
+     */
+    public SortedMap<YearMonth, Long> getMonthlyIncome() {
+        return byMonth(monthlyIncome);
+    }
+
+    /**
+     * Retrieves the withdrawals of every month from the first to the last transaction, including empty months.
+     *
+     * @return the expenses in cents by month, in order.
+     */
+    public SortedMap<YearMonth, Long> getMonthlyExpenses() {
+        return byMonth(monthlyExpenses);
+    }
+
+    /**
+     * Retrieves the deposits of every year from the first to the last transaction.
+     *
+     * @return the income in cents by year, in order.
+     */
+    public SortedMap<Integer, Long> getYearlyIncome() {
+        return byYear(monthlyIncome);
+    }
+
+    /**
+     * Retrieves the withdrawals of every year from the first to the last transaction.
+     *
+     * @return the expenses in cents by year, in order.
+     */
+    public SortedMap<Integer, Long> getYearlyExpenses() {
+        return byYear(monthlyExpenses);
+    }
+
+    /**
+     * Retrieves the balance at the end of every year, as the running total of deposits minus withdrawals.
+     *
+     * @return the balance in cents by year, in order.
+     */
+    public SortedMap<Integer, Long> getYearEndBalances() {
+        SortedMap<Integer, Long> balances = byYear(monthlyIncome);
+        SortedMap<Integer, Long> yearlyExpenses = byYear(monthlyExpenses);
+        long balance = 0;
+        for (Map.Entry<Integer, Long> year : balances.entrySet()) {
+            balance += year.getValue() - yearlyExpenses.get(year.getKey());
+            year.setValue(balance);
+        }
+        return balances;
+    }
+
+    /**
+     * Retrieves the total deposits of each account that has any.
+     *
+     * @return the deposits in cents by account ID.
+     */
+    public Map<Integer, Long> getDepositsByAccount() {
+        return depositsByAccount;
+    }
+
+    /**
+     * Retrieves the total withdrawals of each account that has any.
+     *
+     * @return the withdrawals in cents by account ID.
+     */
+    public Map<Integer, Long> getWithdrawalsByAccount() {
+        return withdrawalsByAccount;
+    }
+
+    private SortedMap<YearMonth, Long> byMonth(long[] totals) {
+        SortedMap<YearMonth, Long> byMonth = new TreeMap<>();
+        for (int month = 0; month < totals.length; month++) {
+            byMonth.put(firstMonth.plusMonths(month), totals[month]);
+        }
+        return byMonth;
+    }
+
+    private SortedMap<Integer, Long> byYear(long[] totals) {
+        SortedMap<Integer, Long> byYear = new TreeMap<>();
+        for (int month = 0; month < totals.length; month++) {
+            byYear.merge(firstMonth.plusMonths(month).getYear(), totals[month], Long::sum);
+        }
+        return byYear;
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static int monthIndex(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /**
+     * The totals of one range of rows. Only the task that created it writes to it until it is merged.
+     */
+    private static final class Partial {
+        private final long[] income;  // Cents per month offset
+        private final long[] expenses;
+        private final Map<Integer, long[]> byAccount = new HashMap<>();  // Deposits and withdrawals per account
+
+        private Partial(int months) {
+            this.income = new long[months];
+            this.expenses = new long[months];
+        }
+
+        private void addAccount(int accId, long deposits, long withdrawals) {
+            long[] sums = byAccount.computeIfAbsent(accId, id -> new long[2]);
+            sums[0] += deposits;
+            sums[1] += withdrawals;
+        }
+
+        private Partial merge(Partial other) {
+            for (int month = 0; month < income.length; month++) {
+                income[month] += other.income[month];
+                expenses[month] += other.expenses[month];
+            }
+            other.byAccount.forEach((accId, sums) -> addAccount(accId, sums[0], sums[1]));
+            return this;
+        }
+    }
+
+    /**
+     * Totals a range of rows, splitting it in halves until the ranges are small enough to total directly.
+     */
+    private static final class Totals extends RecursiveTask<Partial> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient TransactionStore store;
+        private final int from;
+        private final int to;
+        private final int firstMonthIndex;
+        private final int months;
+
+        private Totals(TransactionStore store, int from, int to, int firstMonthIndex, int months) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+            this.firstMonthIndex = firstMonthIndex;
+            this.months = months;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_ROWS) return totalRows();
+
+            int mid = (from + to) >>> 1;
+            Totals left = new Totals(store, from, mid, firstMonthIndex, months);
+            left.fork();
+            Partial right = new Totals(store, mid, to, firstMonthIndex, months).compute();
+            return left.join().merge(right);
+        }
+
+        private Partial totalRows() {
+            Partial totals = new Partial(months);
+
+            // Rows are mostly ordered by account and date, so the month and account of the previous row are
+            // reused until a row falls outside them, instead of being worked out again for every row
+            int monthStart = 0;
+            int monthEnd = 0;
+            int month = 0;
+            int accId = 0;
+            long deposits = 0;
+            long withdrawals = 0;
+
+            for (int row = from; row < to; row++) {
+                int day = store.epochDay(row);
+                if (day < monthStart || day >= monthEnd) {
+                    YearMonth yearMonth = YearMonth.from(LocalDate.ofEpochDay(day));
+                    monthStart = (int) yearMonth.atDay(1).toEpochDay();
+                    monthEnd = (int) yearMonth.plusMonths(1).atDay(1).toEpochDay();
+                    month = monthIndex(yearMonth) - firstMonthIndex;
+                }
+
+                int rowAccId = store.accId(row);
+                if (rowAccId != accId || row == from) {
+                    if (row != from) totals.addAccount(accId, deposits, withdrawals);
+                    accId = rowAccId;
+                    deposits = 0;
+                    withdrawals = 0;
+                }
+
+                long amount = store.amount(row);
+                if (store.type(row) == TransactionType.DEPOSIT) {
+                    totals.income[month] += amount;
+                    deposits += amount;
+                } else {
+                    totals.expenses[month] += amount;
+                    withdrawals += amount;
+                }
+            }
+            if (to > from) totals.addAccount(accId, deposits, withdrawals);
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package structure;
+
+import database.SqlManager;
+import database.enums.TransactionType;
+import database.records.PayeeTotalRow;
+import database.records.TransactionRow;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the largest expenses, either as single withdrawals or summed by payee.
+ * Rows are streamed from the database in no particular order through a {@link TopK}, so nothing is sorted
+ * and only the {@code k} largest rows are ever held in memory.
+ */
+public final class TopExpenses {
+    // Static database connection used to stream withdrawals
+    private static final SqlManager dbConn = SqlManager.DB_CONNECTION;
+
+    // Larger amounts first; equal amounts keep the earlier transaction, or the payee first by name
+    private static final Comparator<TransactionRow> BY_AMOUNT = Comparator.comparingLong(TransactionRow::amount)
+            .thenComparing(Comparator.comparingInt(TransactionRow::id).reversed());
+    private static final Comparator<PayeeTotalRow> BY_TOTAL = Comparator.comparingLong(PayeeTotalRow::total)
+            .thenComparing(Comparator.comparing(PayeeTotalRow::name, Comparator.nullsLast(Comparator.<String>naturalOrder())).reversed());
+
+    private TopExpenses() {
+    }
+
+    /**
+     * Finds the largest single withdrawals.
+     *
+     * @param k      the number of withdrawals to return.
+     * @param accIds the account IDs to search, or an empty array for all accounts.
+     * @param from   the first date to include, or {@code null} for no lower bound.
+     * @param to     the last date to include, or {@code null} for no upper bound.
+     * @return at most {@code k} withdrawals, largest first.
+     */
+    public static List<TransactionRow> transactions(int k, int[] accIds, LocalDate from, LocalDate to) {
+        return TopK.of(k, BY_AMOUNT, dbConn.streamTransactions(TransactionType.WITHDRAW, accIds, from, to));
+    }
+
+    /**
+     * Finds the payees withdrawn the most from in total, grouping withdrawals by name.
+     *
+     * @param k      the number of payees to return.
+     * @param accIds the account IDs to search, or an empty array for all accounts.
+     * @param from   the first date to include, or {@code null} for no lower bound.
+     * @param to     the last date to include, or {@code null} for no upper bound.
+     * @return at most {@code k} payee totals, largest first.
+     */
+    public static List<PayeeTotalRow> payees(int k, int[] accIds, LocalDate from, LocalDate to) {
+        return TopK.of(k, BY_TOTAL, dbConn.streamPayeeTotals(TransactionType.WITHDRAW, accIds, from, to));
+    }
+}
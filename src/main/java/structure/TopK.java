@@ -0,0 +1,89 @@
+package structure;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@code k} greatest of any number of elements offered one at a time.
+ * The kept elements sit in a min-heap of at most {@code k} entries, so each offer costs O(log k), an element
+ * smaller than the least kept one is dropped after a single comparison, and memory stays O(k) however many
+ * elements are offered. Not thread-safe.
+ *
+ * @param <T> the type of the elements.
+ */
+public final class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;  // The least kept element at the head
+
+    /**
+     * Creates an empty selection.
+     *
+     * @param k     the number of elements to keep.
+     * @param order the order in which greater elements are kept.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k < 0) throw new IllegalArgumentException("Cannot keep " + k + " elements");
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(k + 1, order);
+    }
+
+    /**
+     * Selects the {@code k} greatest elements of a stream, consuming and closing it.
+     *
+     * @param k        the number of elements to keep.
+     * @param order    the order in which greater elements are kept.
+     * @param elements the elements to select from.
+     * @return the greatest elements, greatest first.
+     */
+    public static <T> List<T> of(int k, Comparator<? super T> order, Stream<? extends T> elements) {
+        TopK<T> top = new TopK<>(k, order);
+        try (elements) {
+            elements.forEachOrdered(top::offer);
+        }
+        return top.toList();
+    }
+
+    /**
+     * Offers an element, keeping it if it is among the {@code k} greatest so far.
+     *
+     * @param element the element to offer.
+     * @return {@code true} if the element is kept.
+     */
+    public boolean offer(T element) {
+        if (heap.size() < k) {
+            heap.add(element);
+            return true;
+        }
+        if (k == 0 || order.compare(element, heap.peek()) <= 0) return false;
+        heap.poll();
+        heap.add(element);
+        return true;
+    }
+
+    /**
+     * Retrieves the number of elements kept.
+     *
+     * @return the number of elements, at most {@code k}.
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Retrieves the kept elements.
+     *
+     * @return a new list of the elements, greatest first.
+     */
+    public List<T> toList() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(order.reversed());
+        return sorted;
+    }
+}
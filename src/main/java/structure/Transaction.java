@@ -1,20 +1,21 @@
 package structure;
 
-import database.SqlManager;
+import database.WriteBehindQueue;
 import database.enums.TransactionType;
 import database.records.TransactionRow;
 
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneOffset;
 
 /**
  * Represents a transaction associated with an account.
  * Provides methods to manage transaction details and perform updates in the database.
  */
 public class Transaction {
-    // Static database connection shared across all Transaction instances
-    private static final SqlManager dbConn = SqlManager.DB_CONNECTION;
+    // Static queue writing edits to the database in the background, shared across all Transaction instances
+    private static final WriteBehindQueue writeQueue = WriteBehindQueue.QUEUE;
+
+    // The one live Transaction of each loaded row, by transaction ID
+    private static final IdentityMap<Transaction> LIVE = new IdentityMap<>();
 
     // The account this transaction belongs to
     private final Account account;
@@ -22,11 +23,55 @@ public class Transaction {
     // Transaction details
     private final int id;  // Unique identifier for the transaction
     private final int accId;  // Account ID associated with the transaction
-    private LocalDate date;  // Transaction date
+    private int date;  // Transaction date, in days since 1970-01-01
     private String name;  // Transaction description
     private TransactionType type;  // Type of transaction (e.g., debit, credit)
-    private float amount;  // Amount of the transaction
+    private long amount;  // Amount of the transaction, in cents
     private final boolean recurring;  // Flag indicating if the transaction is recurring
+    private final int recId;  // ID of the recurring transaction that posted it, or TransactionRow.NO_RECURRING_TRANSACTION
+
+    /**
+     * Retrieves the live Transaction of a database row, creating it the first time the row is loaded.
+     * A row that is loaded again keeps its existing object, including any edits not yet written.
+     * Called on the JavaFX Application Thread only, like every mutator of the structure layer.
+     *
+     * @param row     the database record representing the transaction.
+     * @param account the account associated with this transaction.
+     * @return the one live Transaction for the row.
+     * @throws IllegalStateException if the row is already live under a different Account object.
+     */
+    static Transaction of(TransactionRow row, Account account) {
+        Transaction live = LIVE.get(row.id());
+        if (live == null) {
+            Transaction created = new Transaction(row, account);
+            live = LIVE.putIfAbsent(row.id(), created);
+            if (live == null) return created;
+        }
+        // Accounts are shared the same way, so a second Account object for the row's account is a bug
+        if (live.account != account) {
+            throw new IllegalStateException("Transaction " + row.id() + " already belongs to another Account object");
+        }
+        return live;
+    }
+
+    /**
+     * Finds the live Transaction of a loaded row without querying the database.
+     *
+     * @param id the transaction ID.
+     * @return the transaction, or {@code null} if its row is not loaded.
+     */
+    public static Transaction find(int id) {
+        return LIVE.get(id);
+    }
+
+    /**
+     * Drops a deleted transaction from the live objects.
+     *
+     * @param id the transaction ID.
+     */
+    static void forget(int id) {
+        LIVE.remove(id);
+    }
 
     /**
      * Constructor that initializes a Transaction instance using data from the database.
@@ -34,16 +79,15 @@ public class Transaction {
      * @param row     the database record representing the transaction.
      * @param account the account associated with this transaction.
      */
-    public Transaction(TransactionRow row, Account account) {
+    private Transaction(TransactionRow row, Account account) {
         this.id = row.id();
         this.accId = row.acc_id();
-        this.date = Instant.ofEpochSecond((long) row.date())
-                .atZone(ZoneOffset.UTC)
-                .toLocalDate();
+        this.date = row.date();
         this.name = row.name();
         this.type = row.type();
         this.amount = row.amount();
         this.recurring = row.recurring();
+        this.recId = row.rec_id();
         this.account = account;
     }
 
@@ -71,6 +115,15 @@ public class Transaction {
      * @return the transaction date.
      */
     public LocalDate getDate() {
+        return LocalDate.ofEpochDay(date);
+    }
+
+    /**
+     * Retrieves the date of the transaction without creating a {@link LocalDate}.
+     *
+     * @return the transaction date, in days since 1970-01-01.
+     */
+    public int getEpochDay() {
         return date;
     }
 
@@ -93,12 +146,22 @@ public class Transaction {
     }
 
     /**
-     * Retrieves the amount involved in the transaction, rounded to two decimal places.
+     * Retrieves the amount involved in the transaction.
+     *
+     * @return the transaction amount, in cents.
+     * @see Money#format(long)
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Retrieves the amount as its effect on the account balance.
      *
-     * @return the transaction amount rounded to two decimal places.
+     * @return the amount in cents, negated for withdrawals.
      */
-    public float getAmount() {
-        return Math.round(amount * 100.0f) / 100.0f;
+    public long getSignedAmount() {
+        return type == TransactionType.DEPOSIT ? amount : -amount;
     }
 
     /**
@@ -111,42 +174,72 @@ public class Transaction {
     }
 
     /**
-     * Updates the date of the transaction and persists the change in the database.
+     * Retrieves the ID of the recurring transaction that posted this transaction.
+     *
+     * @return the recurring transaction ID, or {@link TransactionRow#NO_RECURRING_TRANSACTION}.
+     */
+    public int getRecId() {
+        return recId;
+    }
+
+    /**
+     * Updates the date of the transaction and queues the change to be written to the database.
      *
      * @param date the new transaction date.
      */
     public void setDate(LocalDate date) {
-        dbConn.setTransactionDate(id, date);
-        this.date = date;
+        writeQueue.setTransactionDate(id, date);
+        int oldDay = this.date;
+        this.date = (int) date.toEpochDay();
+        account.moveTransaction(this, oldDay);
     }
 
     /**
-     * Updates the name/description of the transaction and persists the change in the database.
+     * Updates the name/description of the transaction and queues the change to be written to the database.
      *
      * @param name the new transaction name.
      */
     public void setName(String name) {
-        dbConn.setTransactionName(id, name);
+        writeQueue.setTransactionName(id, name);
         this.name = name;
     }
 
     /**
-     * Updates the type of the transaction and persists the change in the database.
+     * Updates the type of the transaction and queues the change to be written to the database.
+     * The account's cached balance reflects the change right away.
      *
      * @param type the new transaction type.
      */
     public void setType(TransactionType type) {
-        dbConn.setTransactionType(id, type.toString());
+        long before = getSignedAmount();
         this.type = type;
+        long change = getSignedAmount() - before;
+        writeQueue.setTransactionType(id, account.getId(), type, change);
+        account.adjustCachedBalance(change);
+    }
+
+    /**
+     * Updates the amount of the transaction and queues the change to be written to the database.
+     * The account's cached balance reflects the change right away.
+     *
+     * @param amount the new transaction amount, in cents.
+     */
+    public void setAmount(long amount) {
+        long before = getSignedAmount();
+        this.amount = amount;
+        long change = getSignedAmount() - before;
+        writeQueue.setTransactionAmount(id, account.getId(), amount, change);
+        account.adjustCachedBalance(change);
     }
 
     /**
-     * Updates the amount of the transaction and persists the change in the database.
+     * Mirrors a change its recurring transaction already wrote to the database, without queuing a write.
      *
-     * @param amount the new transaction amount.
+     * @param type   the new transaction type.
+     * @param amount the new transaction amount, in cents.
      */
-    public void setAmount(float amount) {
-        dbConn.setTransactionAmount(id, amount);
+    void applyRecurringChange(TransactionType type, long amount) {
+        this.type = type;
         this.amount = amount;
     }
 
@@ -0,0 +1,325 @@
+package structure;
+
+import database.SqlManager;
+import database.enums.TransactionType;
+import database.records.TransactionSink;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A read-optimized, column-oriented copy of many transactions for analytics.
+ * Each column is a parallel primitive array, so a row costs 21 bytes (IDs, account IDs and epoch days as
+ * {@code int}, cents as {@code long}, the type as a {@code byte}) and scans walk memory sequentially.
+ * Names are not kept. Rows are read by index or through a reusable {@link Cursor}; the store never
+ * creates an object per row. Rows are only appended, typically once through {@link #load(int...)}.
+ */
+public final class TransactionStore implements TransactionSink {
+    // Static database connection used to load stores
+    private static final SqlManager dbConn = SqlManager.DB_CONNECTION;
+
+    // Transaction types by the code kept in the type column
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Parallel columns; only the first size entries of each are rows
+    private int[] ids;
+    private int[] accIds;
+    private int[] dates;  // Days since 1970-01-01
+    private long[] amounts;  // Cents
+    private byte[] types;  // TransactionType ordinal
+    private int size;
+
+    // Earliest and latest date of any row, in days since 1970-01-01
+    private int firstDay = Integer.MAX_VALUE;
+    private int lastDay = Integer.MIN_VALUE;
+
+    /**
+     * Creates an empty store.
+     */
+    public TransactionStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store with room for a number of rows before its columns grow.
+     *
+     * @param capacity the expected number of rows.
+     */
+    public TransactionStore(int capacity) {
+        ids = new int[capacity];
+        accIds = new int[capacity];
+        dates = new int[capacity];
+        amounts = new long[capacity];
+        types = new byte[capacity];
+    }
+
+    /**
+     * Loads the transactions of specific accounts from the database, ordered by account and date.
+     *
+     * @param accIds the account IDs to load, or none for all accounts.
+     * @return a store holding the loaded transactions.
+     */
+    public static TransactionStore load(int... accIds) {
+        TransactionStore store = new TransactionStore();
+        dbConn.loadTransactions(store, accIds);
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Appends one transaction to the store.
+     *
+     * @param id     the transaction ID.
+     * @param acc_id the account ID of the transaction.
+     * @param date   the transaction date, in days since 1970-01-01.
+     * @param type   the transaction type.
+     * @param amount the transaction amount, in cents.
+     */
+    @Override
+    public void accept(int id, int acc_id, int date, TransactionType type, long amount) {
+        if (size == ids.length) grow();
+        ids[size] = id;
+        accIds[size] = acc_id;
+        dates[size] = date;
+        amounts[size] = amount;
+        types[size] = (byte) type.ordinal();
+        size++;
+        firstDay = Math.min(firstDay, date);
+        lastDay = Math.max(lastDay, date);
+    }
+
+    /**
+     * Retrieves the number of transactions in the store.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the earliest date of any row.
+     *
+     * @return the earliest transaction date, in days since 1970-01-01.
+     * @throws IllegalStateException if the store is empty.
+     */
+    public int firstEpochDay() {
+        if (size == 0) throw new IllegalStateException("The store holds no transactions");
+        return firstDay;
+    }
+
+    /**
+     * Retrieves the latest date of any row.
+     *
+     * @return the latest transaction date, in days since 1970-01-01.
+     * @throws IllegalStateException if the store is empty.
+     */
+    public int lastEpochDay() {
+        if (size == 0) throw new IllegalStateException("The store holds no transactions");
+        return lastDay;
+    }
+
+    /**
+     * Retrieves the ID of a row.
+     *
+     * @param row the row index.
+     * @return the transaction ID.
+     */
+    public int id(int row) {
+        return ids[checkRow(row)];
+    }
+
+    /**
+     * Retrieves the account ID of a row.
+     *
+     * @param row the row index.
+     * @return the account ID.
+     */
+    public int accId(int row) {
+        return accIds[checkRow(row)];
+    }
+
+    /**
+     * Retrieves the date of a row without creating a {@link LocalDate}.
+     *
+     * @param row the row index.
+     * @return the transaction date, in days since 1970-01-01.
+     */
+    public int epochDay(int row) {
+        return dates[checkRow(row)];
+    }
+
+    /**
+     * Retrieves the amount of a row.
+     *
+     * @param row the row index.
+     * @return the transaction amount, in cents.
+     */
+    public long amount(int row) {
+        return amounts[checkRow(row)];
+    }
+
+    /**
+     * Retrieves the type of a row.
+     *
+     * @param row the row index.
+     * @return the transaction type.
+     */
+    public TransactionType type(int row) {
+        return TYPES[types[checkRow(row)]];
+    }
+
+    /**
+     * Retrieves the amount of a row as its effect on the balance.
+     *
+     * @param row the row index.
+     * @return the amount in cents, negated for withdrawals.
+     */
+    public long signedAmount(int row) {
+        return type(row) == TransactionType.DEPOSIT ? amounts[row] : -amounts[row];
+    }
+
+    /**
+     * Creates a cursor positioned before the first row.
+     *
+     * @return a new cursor over this store.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Shrinks the columns to the number of rows, releasing unused capacity.
+     */
+    public void trimToSize() {
+        if (size == ids.length) return;
+        ids = Arrays.copyOf(ids, size);
+        accIds = Arrays.copyOf(accIds, size);
+        dates = Arrays.copyOf(dates, size);
+        amounts = Arrays.copyOf(amounts, size);
+        types = Arrays.copyOf(types, size);
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        accIds = Arrays.copyOf(accIds, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        types = Arrays.copyOf(types, capacity);
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + size + " transactions");
+        }
+        return row;
+    }
+
+    /**
+     * A reusable view of one row at a time. Moving the cursor changes what its accessors return,
+     * so values must be copied out before advancing.
+     */
+    public final class Cursor {
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next row.
+         *
+         * @return {@code true} if the cursor is on a row, {@code false} once past the last one.
+         */
+        public boolean next() {
+            if (row < size) row++;
+            return row < size;
+        }
+
+        /**
+         * Moves to a specific row.
+         *
+         * @param row the row index.
+         * @return this cursor.
+         */
+        public Cursor moveTo(int row) {
+            this.row = checkRow(row);
+            return this;
+        }
+
+        /**
+         * Retrieves the index of the current row.
+         *
+         * @return the row index.
+         */
+        public int row() {
+            return row;
+        }
+
+        /**
+         * Retrieves the transaction ID of the current row.
+         *
+         * @return the transaction ID.
+         */
+        public int id() {
+            return TransactionStore.this.id(row);
+        }
+
+        /**
+         * Retrieves the account ID of the current row.
+         *
+         * @return the account ID.
+         */
+        public int accId() {
+            return TransactionStore.this.accId(row);
+        }
+
+        /**
+         * Retrieves the date of the current row without creating a {@link LocalDate}.
+         *
+         * @return the transaction date, in days since 1970-01-01.
+         */
+        public int epochDay() {
+            return TransactionStore.this.epochDay(row);
+        }
+
+        /**
+         * Retrieves the date of the current row.
+         *
+         * @return the transaction date.
+         */
+        public LocalDate date() {
+            return LocalDate.ofEpochDay(epochDay());
+        }
+
+        /**
+         * Retrieves the type of the current row.
+         *
+         * @return the transaction type.
+         */
+        public TransactionType type() {
+            return TransactionStore.this.type(row);
+        }
+
+        /**
+         * Retrieves the amount of the current row.
+         *
+         * @return the transaction amount, in cents.
+         * @see Money#format(long)
+         */
+        public long amount() {
+            return TransactionStore.this.amount(row);
+        }
+
+        /**
+         * Retrieves the amount of the current row as its effect on the balance.
+         *
+         * @return the amount in cents, negated for withdrawals.
+         */
+        public long signedAmount() {
+            return TransactionStore.this.signedAmount(row);
+        }
+    }
+}
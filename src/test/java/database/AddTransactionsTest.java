@@ -0,0 +1,80 @@
+package database;
+
+import database.enums.TransactionType;
+import database.records.TransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link SqlManager#addTransactions(java.util.Collection)} returns the ID of each inserted row
+ * in input order and adjusts every account balance once by the summed amounts.
+ */
+class AddTransactionsTest {
+
+    private static final int DAY = (int) LocalDate.of(2024, 3, 1).toEpochDay();
+
+    @TempDir
+    Path dir;
+
+    private SqlManager db;
+    private int checking;
+    private int savings;
+
+    @BeforeEach
+    void open() {
+        db = new SqlManager("jdbc:sqlite:" + dir.resolve("finance.db"), 1);
+        checking = db.addAccount("Checking", null, null);
+        savings = db.addAccount("Savings", null, null);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void returnsIdsOfRowsInInputOrder() {
+        // A deleted row leaves a gap, so the new IDs do not simply follow the number of rows
+        db.deleteTransaction(db.addTransaction(checking, LocalDate.ofEpochDay(DAY), "gone", TransactionType.DEPOSIT, 1, false));
+
+        List<TransactionRow> rows = List.of(
+                row(savings, "rent", TransactionType.WITHDRAW, 90_000),
+                row(checking, "salary", TransactionType.DEPOSIT, 250_000),
+                row(checking, "groceries", TransactionType.WITHDRAW, 4_550));
+        int[] ids = db.addTransactions(rows);
+
+        Map<Integer, String> names = new HashMap<>();
+        for (TransactionRow stored : db.getTransactions(checking, savings)) {
+            names.put(stored.id(), stored.name());
+        }
+        assertEquals(rows.size(), ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(rows.get(i).name(), names.get(ids[i]));
+        }
+    }
+
+    @Test
+    void adjustsEachAccountBalanceBySummedAmounts() {
+        db.addTransactions(List.of(
+                row(checking, "salary", TransactionType.DEPOSIT, 250_000),
+                row(checking, "groceries", TransactionType.WITHDRAW, 4_550),
+                row(savings, "interest", TransactionType.DEPOSIT, 120)));
+
+        assertEquals(245_450, db.getAccount(checking).balance());
+        assertEquals(120, db.getAccount(savings).balance());
+    }
+
+    private static TransactionRow row(int acc_id, String name, TransactionType type, long amount) {
+        return new TransactionRow(0, acc_id, DAY, name, type, amount, false, TransactionRow.NO_RECURRING_TRANSACTION);
+    }
+}
@@ -0,0 +1,121 @@
+package database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link ConnectionPool} fails reads instead of handing out closed connections or waiting forever,
+ * and that nested transactions roll back only as far as their savepoint.
+ */
+class ConnectionPoolTest {
+
+    @TempDir
+    Path dir;
+
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:sqlite:" + dir.resolve("pool.db");
+    }
+
+    @Test
+    void readAfterCloseFails() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(url, 2);
+        pool.close();
+
+        SQLException e = assertThrows(SQLException.class, () -> pool.read(statements -> 1));
+        assertTrue(e.getMessage().contains("closed"), e.getMessage());
+    }
+
+    @Test
+    void readerReleasedAfterCloseIsNotReused() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(url, 1);
+        StatementCache held = pool.acquireReader();
+        pool.close();
+        pool.releaseReader(held);
+
+        assertThrows(SQLException.class, pool::acquireReader);
+    }
+
+    @Test
+    void nestedReadWhileEveryReaderIsHeldTimesOut() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(url, 1, 50)) {
+            StatementCache held = pool.acquireReader();
+            try {
+                SQLException e = assertThrows(SQLTimeoutException.class, () -> pool.read(statements -> 1));
+                assertTrue(e.getMessage().contains("not closed"), e.getMessage());
+            } finally {
+                pool.releaseReader(held);
+            }
+            assertEquals(Integer.valueOf(1), pool.read(statements -> 1));
+        }
+    }
+
+    @Test
+    void failedNestedTransactionCaughtByOuterWorkKeepsOuterChanges() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(url, 1)) {
+            createTable(pool);
+            pool.transaction(statements -> {
+                insert(statements, "outer");
+                assertThrows(SQLException.class, () -> pool.transaction(nested -> {
+                    insert(nested, "inner");
+                    throw new SQLException("Inner work failed");
+                }));
+                return null;
+            });
+
+            assertEquals(List.of("outer"), names(pool));
+        }
+    }
+
+    @Test
+    void failedOuterTransactionUndoesSucceededNestedTransaction() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(url, 1)) {
+            createTable(pool);
+            assertThrows(RuntimeException.class, () -> pool.transaction(statements -> {
+                insert(statements, "outer");
+                pool.transaction(nested -> insert(nested, "inner"));
+                throw new RuntimeException("Outer work failed");
+            }));
+
+            assertEquals(List.of(), names(pool));
+            // The writer is usable again after the rollback
+            pool.transaction(statements -> insert(statements, "after"));
+            assertEquals(List.of("after"), names(pool));
+        }
+    }
+
+    private static void createTable(ConnectionPool pool) throws SQLException {
+        pool.write(statements -> statements.prepare("CREATE TABLE item (name TEXT NOT NULL);").executeUpdate());
+    }
+
+    private static int insert(StatementCache statements, String name) throws SQLException {
+        PreparedStatement ps = statements.prepare("INSERT INTO item (name) VALUES (?);");
+        ps.setString(1, name);
+        return ps.executeUpdate();
+    }
+
+    private static List<String> names(ConnectionPool pool) throws SQLException {
+        return pool.read(statements -> {
+            List<String> names = new ArrayList<>();
+            try (ResultSet rs = statements.prepare("SELECT name FROM item ORDER BY rowid;").executeQuery()) {
+                while (rs.next()) names.add(rs.getString("name"));
+            }
+            return names;
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package database;
+
+import database.enums.RecurringRate;
+import database.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that deleting an account removes every row that references it and leaves the foreign keys consistent.
+ */
+class DeleteAccountTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 15);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void deletingAnAccountRemovesEverythingReferencingIt() throws Exception {
+        String url = "jdbc:sqlite:" + dir.resolve("finance.db");
+        int doomed;
+        int kept;
+        try (SqlManager db = new SqlManager(url, 1)) {
+            doomed = db.addAccount("Checking", null, null);
+            kept = db.addAccount("Savings", null, null);
+            for (int acc_id : new int[]{doomed, kept}) {
+                db.addTransaction(acc_id, START, "salary", TransactionType.DEPOSIT, 10_000, false);
+                db.addTransaction(acc_id, START.plusMonths(1), "coffee", TransactionType.WITHDRAW, 300, false);
+                db.addRecurringTransaction(acc_id, START, "Rent", TransactionType.WITHDRAW, RecurringRate.MONTHLY, 4_000);
+            }
+            assertFalse(db.getMonthlySummaries(doomed).isEmpty());
+
+            db.deleteAccount(doomed);
+
+            assertTrue(db.getTransactions(doomed).isEmpty());
+            assertTrue(db.getRecurringTransactions(doomed).isEmpty());
+            assertTrue(db.getMonthlySummaries(doomed).isEmpty());
+            assertFalse(db.getTransactions(kept).isEmpty());
+            assertFalse(db.getRecurringTransactions(kept).isEmpty());
+            assertFalse(db.getMonthlySummaries(kept).isEmpty());
+        }
+
+        try (Connection conn = DriverManager.getConnection(url); Statement st = conn.createStatement()) {
+            assertEquals(0, count(st, "SELECT COUNT(*) FROM user_transaction WHERE acc_id = " + doomed + ";"));
+            assertEquals(0, count(st, "SELECT COUNT(*) FROM monthly_summary WHERE acc_id = " + doomed + ";"));
+            try (ResultSet rs = st.executeQuery("PRAGMA foreign_key_check;")) {
+                assertFalse(rs.next(), "foreign_key_check reported a dangling row");
+            }
+        }
+    }
+
+    private static int count(Statement st, String sql) throws Exception {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package database;
+
+import database.enums.RecurringRate;
+import database.enums.TransactionType;
+import database.records.MonthlySummaryRow;
+import database.records.TransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the trigger-maintained {@code monthly_summary} matches a grouping of {@code user_transaction}
+ * after every kind of write.
+ */
+class MonthlySummaryTest {
+
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 20);
+
+    @TempDir
+    Path dir;
+
+    private SqlManager db;
+    private int checking;
+    private int savings;
+
+    @BeforeEach
+    void open() {
+        db = new SqlManager("jdbc:sqlite:" + dir.resolve("finance.db"), 1);
+        checking = db.addAccount("Checking", null, null);
+        savings = db.addAccount("Savings", null, null);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void insertsAreSummed() {
+        db.addTransaction(checking, JAN, "salary", TransactionType.DEPOSIT, 10_000, false);
+        db.addTransaction(checking, JAN.plusDays(3), "rent", TransactionType.WITHDRAW, 4_000, false);
+        db.addTransaction(checking, JAN.plusDays(15), "coffee", TransactionType.WITHDRAW, 300, false);
+        db.addTransactions(List.of(
+                new TransactionRow(0, savings, (int) JAN.toEpochDay(), "interest", TransactionType.DEPOSIT, 50, false, 0)));
+        assertMatchesTransactions();
+    }
+
+    @Test
+    void typeAmountAndDateChangesMoveTotals() {
+        int salary = db.addTransaction(checking, JAN, "salary", TransactionType.DEPOSIT, 10_000, false);
+        int rent = db.addTransaction(checking, JAN, "rent", TransactionType.WITHDRAW, 4_000, false);
+        int coffee = db.addTransaction(checking, JAN, "coffee", TransactionType.WITHDRAW, 300, false);
+
+        db.setTransactionType(salary, TransactionType.WITHDRAW.toString());
+        assertMatchesTransactions();
+        db.setTransactionAmount(rent, 4_500);
+        assertMatchesTransactions();
+        // Moves coffee into February, leaving January without it
+        db.setTransactionDate(coffee, JAN.plusDays(15));
+        assertMatchesTransactions();
+        db.updateTransaction(rent, JAN.plusMonths(2), null, TransactionType.DEPOSIT, 5_000L);
+        assertMatchesTransactions();
+    }
+
+    @Test
+    void deletesDropEmptyMonths() {
+        int rent = db.addTransaction(checking, JAN, "rent", TransactionType.WITHDRAW, 4_000, false);
+        int coffee = db.addTransaction(checking, JAN.plusMonths(1), "coffee", TransactionType.WITHDRAW, 300, false);
+        db.addTransaction(checking, JAN.plusMonths(1), "tea", TransactionType.WITHDRAW, 200, false);
+
+        db.deleteTransaction(rent);
+        assertMatchesTransactions();
+        assertTrue(db.getMonthlySummaries(checking).stream().noneMatch(row -> row.yearMonth() == 202401));
+        db.deleteTransaction(coffee);
+        assertMatchesTransactions();
+    }
+
+    @Test
+    void recurringPostingChangesMoveTotals() {
+        int rec_id = db.addRecurringTransaction(checking, JAN, "Rent", TransactionType.WITHDRAW, RecurringRate.MONTHLY, 4_000);
+        db.addTransaction(checking, JAN.plusMonths(1), "salary", TransactionType.DEPOSIT, 10_000, false);
+        assertMatchesTransactions();
+
+        assertTrue(db.updateRecurringPostings(rec_id, JAN.plusMonths(2), null, 4_500L) > 0);
+        assertMatchesTransactions();
+        assertTrue(db.updateRecurringPostings(rec_id, JAN.plusMonths(4), TransactionType.DEPOSIT, null) > 0);
+        assertMatchesTransactions();
+    }
+
+    /**
+     * Asserts that the stored summaries equal the per-account, per-month, per-type totals of the transactions.
+     */
+    private void assertMatchesTransactions() {
+        Map<String, MonthlySummaryRow> expected = new HashMap<>();
+        for (TransactionRow row : db.getTransactions()) {
+            LocalDate date = LocalDate.ofEpochDay(row.date());
+            int yearMonth = date.getYear() * 100 + date.getMonthValue();
+            expected.merge(row.acc_id() + "/" + yearMonth + "/" + row.type(),
+                    new MonthlySummaryRow(row.acc_id(), yearMonth, row.type(), row.amount(), 1),
+                    (a, b) -> new MonthlySummaryRow(a.acc_id(), a.yearMonth(), a.type(), a.total() + b.total(), a.count() + b.count()));
+        }
+        Set<MonthlySummaryRow> stored = db.getMonthlySummaries().stream().collect(Collectors.toSet());
+        assertEquals(Set.copyOf(expected.values()), stored);
+    }
+}
@@ -0,0 +1,101 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the queries of {@link SqlManager} are served by the indexes the migrations create,
+ * by reading SQLite's {@code EXPLAIN QUERY PLAN} on a freshly migrated database.
+ */
+class QueryPlanTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection conn;
+
+    @BeforeEach
+    void migrate() throws Exception {
+        String url = "jdbc:sqlite:" + dir.resolve("finance.db");
+        new SqlManager(url, 1).close();
+        conn = DriverManager.getConnection(url);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void transactionsOfOneAccountUseAccountDateIndex() throws SQLException {
+        String plan = plan(SqlManager.transactionsQuery(new int[]{1}), 1);
+        assertTrue(plan.contains("user_transaction_acc_date"), plan);
+    }
+
+    @Test
+    void transactionsOfSeveralAccountsUseAccountDateIndex() throws SQLException {
+        String plan = plan(SqlManager.transactionsQuery(new int[]{1, 2}), 1, 2);
+        assertTrue(plan.contains("user_transaction_acc_date"), plan);
+    }
+
+    @Test
+    void recurringTransactionsOfAccountsUseAccountIndex() throws SQLException {
+        String plan = plan(SqlManager.recurringTransactionsQuery(new int[]{1, 2}), 1, 2);
+        assertTrue(plan.contains("recurring_transaction_acc"), plan);
+    }
+
+    @Test
+    void pageOfOneAccountSeeksAccountDateIndexWithoutSorting() throws SQLException {
+        String plan = plan(SqlManager.transactionPageQuery(true, true, true, true), 1, 0, 100, 5, 7, 50);
+        assertTrue(plan.contains("user_transaction_acc_date"), plan);
+        assertFalse(plan.contains("TEMP B-TREE"), plan);
+    }
+
+    @Test
+    void pageOfAllAccountsSeeksDateIndexWithoutSorting() throws SQLException {
+        String plan = plan(SqlManager.transactionPageQuery(false, false, false, true), 5, 7, 50);
+        assertTrue(plan.contains("user_transaction_date"), plan);
+        assertFalse(plan.contains("TEMP B-TREE"), plan);
+    }
+
+    @Test
+    void pageOfAllAccountsInDateRangeSeeksDateIndexWithoutSorting() throws SQLException {
+        String plan = plan(SqlManager.transactionPageQuery(false, true, true, false), 0, 100, 50);
+        assertTrue(plan.contains("user_transaction_date"), plan);
+        assertFalse(plan.contains("TEMP B-TREE"), plan);
+    }
+
+    /**
+     * Reads the query plan of a statement.
+     *
+     * @param sql    the statement.
+     * @param params the integer parameters of the statement, in order.
+     * @return the plan, one step per line.
+     */
+    private String plan(String sql, int... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setInt(i + 1, params[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString("detail")).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
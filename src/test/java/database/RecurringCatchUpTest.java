@@ -0,0 +1,81 @@
+package database;
+
+import database.enums.RecurringRate;
+import database.enums.TransactionType;
+import database.records.AccountRow;
+import database.records.RecurringTransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that running a catch-up again, even from rule rows read before the previous run, posts nothing twice.
+ */
+class RecurringCatchUpTest {
+
+    @TempDir
+    Path dir;
+
+    private SqlManager db;
+    private int checking;
+    private int savings;
+
+    @BeforeEach
+    void open() {
+        db = new SqlManager("jdbc:sqlite:" + dir.resolve("finance.db"), 1);
+        checking = db.addAccount("Checking", null, null);
+        savings = db.addAccount("Savings", null, null);
+        LocalDate start = LocalDate.now().minusMonths(5);
+        db.addRecurringTransaction(checking, start, "Rent", TransactionType.WITHDRAW, RecurringRate.MONTHLY, 4_000);
+        db.addRecurringTransaction(checking, start, "Salary", TransactionType.DEPOSIT, RecurringRate.BI_WEEKLY, 5_000);
+        db.addRecurringTransaction(savings, start, "Transfer", TransactionType.DEPOSIT, RecurringRate.WEEKLY, 500);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void checkingTwiceChangesNothing() {
+        List<AccountRow> before = db.getAccounts();
+        int rows = db.getTransactions().size();
+        assertTrue(rows > 0);
+
+        db.checkRecurringTransactions();
+        db.checkRecurringTransactions();
+
+        assertEquals(rows, db.getTransactions().size());
+        assertEquals(before, db.getAccounts());
+    }
+
+    @Test
+    void catchUpFromStaleRulesPostsEveryOccurrenceOnce() {
+        // Read before the run below advances last_time_transacted, as a concurrent catch-up would
+        List<RecurringTransactionRow> stale = db.getRecurringTransactions();
+        RecurringCatchUp catchUp = new RecurringCatchUp(db);
+        LocalDate until = LocalDate.now().plusMonths(2);
+
+        catchUp.catchUp(stale, until);
+        List<AccountRow> accounts = db.getAccounts();
+        int rows = db.getTransactions().size();
+
+        catchUp.catchUp(stale, until);
+        catchUp.catchUp(db.getRecurringTransactions(), until);
+
+        assertEquals(rows, db.getTransactions().size());
+        assertEquals(accounts, db.getAccounts());
+        int expected = stale.stream().mapToInt(rule -> RecurringCatchUp.dueDates(
+                new RecurringTransactionRow(rule.id(), rule.acc_id(), rule.start_date(), rule.name(), rule.type(),
+                        rule.recurringRate(), rule.amount(), RecurringTransactionRow.NEVER_TRANSACTED), until).size()).sum();
+        assertEquals(expected, rows);
+    }
+}
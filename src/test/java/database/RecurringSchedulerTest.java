@@ -0,0 +1,112 @@
+package database;
+
+import database.enums.RecurringRate;
+import database.enums.TransactionType;
+import database.records.RecurringTransactionRow;
+import database.records.TransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link RecurringScheduler} posts only what a rescheduled rule owes and reports posting failures on close.
+ */
+class RecurringSchedulerTest {
+
+    /**
+     * A database manager whose lookups of rules by ID fail once {@link #failLookups} is set.
+     */
+    private static final class FailingSqlManager extends SqlManager {
+        final RuntimeException failure = new RuntimeException("Disk is full");
+        final CountDownLatch failed = new CountDownLatch(1);
+        volatile boolean failLookups;
+
+        FailingSqlManager(String url) {
+            super(url, 1);
+        }
+
+        @Override
+        public List<RecurringTransactionRow> getRecurringTransactionsById(int... rec_ids) {
+            if (failLookups) {
+                failed.countDown();
+                throw failure;
+            }
+            return super.getRecurringTransactionsById(rec_ids);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private FailingSqlManager db;
+    private WriteBehindQueue queue;
+    private RecurringScheduler scheduler;
+
+    @BeforeEach
+    void open() {
+        db = new FailingSqlManager("jdbc:sqlite:" + dir.resolve("finance.db"));
+        queue = new WriteBehindQueue(db);
+        scheduler = new RecurringScheduler(db, queue);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        scheduler.close();
+        queue.close();
+        db.close();
+    }
+
+    @Test
+    void rescheduleAfterRateChangePostsOnlyOwedOccurrences() throws Exception {
+        LocalDate start = LocalDate.now().minusDays(70);
+        int acc_id = db.addAccount("Checking", null, null);
+        // Posts the start date and the two following months
+        int rec_id = db.addRecurringTransaction(acc_id, start, "Gym", TransactionType.WITHDRAW, RecurringRate.MONTHLY, 100);
+        assertEquals(3, db.getTransactions(acc_id).size());
+        scheduler.start();
+
+        // Weekly occurrences up to the last monthly posting are covered by it; only the one after it is owed
+        db.setRecurringTransactionRate(rec_id, RecurringRate.WEEKLY.toString());
+        scheduler.reschedule(rec_id);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (db.getTransactions(acc_id).size() == 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        scheduler.close();
+
+        List<TransactionRow> rows = db.getTransactions(acc_id);
+        assertEquals(4, rows.size());
+        assertTrue(rows.stream().anyMatch(row -> row.date() == start.plusWeeks(9).toEpochDay()));
+        assertEquals(-400, db.getAccount(acc_id).balance());
+    }
+
+    @Test
+    void closeRethrowsPostingFailure() throws Exception {
+        int acc_id = db.addAccount("Checking", null, null);
+        int rec_id = db.addRecurringTransaction(acc_id, LocalDate.now(), "Gym", TransactionType.WITHDRAW, RecurringRate.MONTHLY, 100);
+        scheduler.start();
+
+        db.failLookups = true;
+        scheduler.reschedule(rec_id);
+        assertTrue(db.failed.await(10, TimeUnit.SECONDS));
+
+        // Ends the retry back-off and reports the failure
+        RuntimeException e = assertThrows(RuntimeException.class, scheduler::close);
+        assertSame(db.failure, e);
+        // Reported once
+        scheduler.close();
+    }
+}
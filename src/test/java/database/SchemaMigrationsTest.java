@@ -0,0 +1,117 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that migrating a database links recurring postings written before {@code rec_id} existed.
+ */
+class SchemaMigrationsTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 15);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void legacyRecurringPostingsAreLinkedToTheirRule() throws Exception {
+        String url = "jdbc:sqlite:" + dir.resolve("finance.db");
+        int acc_id;
+        try (SqlManager db = new SqlManager(url, 1)) {
+            acc_id = db.addAccount("Checking", null, null);
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        int rent;
+        try (Connection conn = DriverManager.getConnection(url)) {
+            // Inserted directly, since adding a rule through SqlManager would post its occurrences itself
+            rent = legacyRule(conn, acc_id, "Rent", "monthly");
+            // Two rules sharing a name cannot tell their postings apart
+            legacyRule(conn, acc_id, "Gym", "monthly");
+            legacyRule(conn, acc_id, "Gym", "weekly");
+
+            ids.put("feb", legacyPosting(conn, acc_id, START.plusMonths(1), "Rent"));
+            ids.put("mar", legacyPosting(conn, acc_id, START.plusMonths(2), "Rent"));
+            // A catch-up that ran twice posted March again
+            ids.put("marCopy", legacyPosting(conn, acc_id, START.plusMonths(2), "Rent"));
+            ids.put("beforeStart", legacyPosting(conn, acc_id, START.minusDays(1), "Rent"));
+            ids.put("gym", legacyPosting(conn, acc_id, START.plusMonths(1), "Gym"));
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("PRAGMA user_version = 9;");
+            }
+        }
+
+        new SqlManager(url, 1).close();
+
+        try (Connection conn = DriverManager.getConnection(url)) {
+            assertEquals(rent, recId(conn, ids.get("feb")));
+            assertEquals(rent, recId(conn, ids.get("mar")));
+            assertNull(recId(conn, ids.get("marCopy")));
+            assertNull(recId(conn, ids.get("beforeStart")));
+            assertNull(recId(conn, ids.get("gym")));
+        }
+    }
+
+    /**
+     * Inserts a recurring transaction starting at {@link #START} without posting any of its occurrences.
+     */
+    private static int legacyRule(Connection conn, int acc_id, String name, String rate) throws SQLException {
+        String sql = """
+                INSERT INTO recurring_transaction (acc_id, start_date, name, type, recurring_rate, amount)
+                VALUES (?, ?, ?, 'withdraw', ?, 100)
+                RETURNING id;""";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, acc_id);
+            ps.setLong(2, START.toEpochDay());
+            ps.setString(3, name);
+            ps.setString(4, rate);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt("id");
+            }
+        }
+    }
+
+    /**
+     * Inserts a posting the way versions before 6 did, flagged as recurring but without a {@code rec_id}.
+     */
+    private static int legacyPosting(Connection conn, int acc_id, LocalDate date, String name) throws SQLException {
+        String sql = """
+                INSERT INTO user_transaction (acc_id, date, name, type, amount, recurring)
+                VALUES (?, ?, ?, 'withdraw', 100, 1)
+                RETURNING id;""";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, acc_id);
+            ps.setLong(2, date.toEpochDay());
+            ps.setString(3, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt("id");
+            }
+        }
+    }
+
+    private static Integer recId(Connection conn, int tran_id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT rec_id FROM user_transaction WHERE id = ?;")) {
+            ps.setInt(1, tran_id);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return (Integer) rs.getObject("rec_id");
+            }
+        }
+    }
+}
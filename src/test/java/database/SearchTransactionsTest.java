@@ -0,0 +1,90 @@
+package database;
+
+import database.enums.TransactionType;
+import database.records.TransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link SqlManager#searchTransactions} matches word prefixes, treats FTS5 syntax in user input
+ * literally and follows renames and deletes of transactions.
+ */
+class SearchTransactionsTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 5, 1);
+
+    @TempDir
+    Path dir;
+
+    private SqlManager db;
+    private int acc_id;
+
+    @BeforeEach
+    void open() {
+        db = new SqlManager("jdbc:sqlite:" + dir.resolve("finance.db"), 1);
+        acc_id = db.addAccount("Checking", null, null);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void everyWordMatchesAsAPrefix() {
+        int coffee = add("Coffee shop");
+        int coffeeBeans = add("coffee beans");
+        add("Grocery store");
+
+        assertEquals(Set.of(coffee, coffeeBeans), search("cof"));
+        assertEquals(Set.of(coffee), search("coff sh"));
+        assertEquals(Set.of(), search("shop beans"));
+    }
+
+    @Test
+    void quotesAndOperatorsAreSearchedLiterally() {
+        add("Coffee shop");
+        add("Grocery store");
+
+        assertEquals(Set.of(), search("\"abc OR"));
+        assertEquals(Set.of(), search("coffee AND (grocery"));
+        assertEquals(Set.of(), search("NOT *"));
+        assertTrue(db.searchTransactions("   ", new int[0], null, null, 10, 0).isEmpty());
+    }
+
+    @Test
+    void indexFollowsRenamesAndDeletes() {
+        int tran_id = add("coffee");
+        assertEquals(Set.of(tran_id), search("coffee"));
+
+        db.setTransactionName(tran_id, "tea");
+        assertEquals(Set.of(), search("coffee"));
+        assertEquals(Set.of(tran_id), search("tea"));
+
+        db.updateTransaction(tran_id, null, "green tea", null, null);
+        assertEquals(Set.of(tran_id), search("green"));
+
+        db.deleteTransaction(tran_id);
+        assertEquals(Set.of(), search("tea"));
+    }
+
+    private int add(String name) {
+        return db.addTransaction(acc_id, DATE, name, TransactionType.WITHDRAW, 300, false);
+    }
+
+    private Set<Integer> search(String text) {
+        List<TransactionRow> rows = db.searchTransactions(text, new int[]{acc_id}, null, null, 10, 0);
+        return rows.stream().map(TransactionRow::id).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,123 @@
+package database;
+
+import database.enums.TransactionType;
+import database.records.TransactionKey;
+import database.records.TransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that keyset pages of {@link SqlManager#getTransactions(int[], LocalDate, LocalDate, TransactionKey, int)}
+ * add up to the full, ordered history, whether they span one account, several or all of them.
+ */
+class TransactionPagingTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    private SqlManager db;
+    private int first;
+    private int second;
+    private int third;
+
+    @BeforeEach
+    void fill() {
+        db = new SqlManager("jdbc:sqlite:" + dir.resolve("finance.db"), 1);
+        first = db.addAccount("Checking", null, null);
+        second = db.addAccount("Savings", null, null);
+        third = db.addAccount("Cash", null, null);
+        // Interleaved dates with several transactions per day, so pages cut through equal dates
+        for (int i = 0; i < 30; i++) {
+            int acc_id = i % 3 == 0 ? first : i % 3 == 1 ? second : third;
+            db.addTransaction(acc_id, START.plusDays(i / 4), "t" + i, TransactionType.WITHDRAW, 100 + i, false);
+        }
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void pagesOfAllAccountsCoverHistoryInOrder() {
+        assertEquals(expected(new int[0], null, null), pages(new int[0], null, null, 4));
+    }
+
+    @Test
+    void pagesOfOneAccountCoverItsHistoryInOrder() {
+        int[] accounts = {second};
+        assertEquals(expected(accounts, null, null), pages(accounts, null, null, 3));
+    }
+
+    @Test
+    void pagesOfSeveralAccountsAreMergedInOrder() {
+        int[] accounts = {first, third};
+        assertEquals(expected(accounts, null, null), pages(accounts, null, null, 4));
+    }
+
+    @Test
+    void pagesOfSeveralAccountsRespectDateRange() {
+        int[] accounts = {third, first};
+        LocalDate from = START.plusDays(2);
+        LocalDate to = START.plusDays(5);
+        assertEquals(expected(accounts, from, to), pages(accounts, from, to, 2));
+    }
+
+    @Test
+    void pageBoundaryInsideOneAccountsRunOfRows() {
+        // Five rows of one account on a single day, between rows of the other account
+        LocalDate day = START.plusDays(20);
+        db.addTransaction(second, day.minusDays(1), "before", TransactionType.WITHDRAW, 1, false);
+        for (int i = 0; i < 5; i++) {
+            db.addTransaction(first, day, "run" + i, TransactionType.WITHDRAW, 1, false);
+        }
+        db.addTransaction(second, day, "after", TransactionType.WITHDRAW, 1, false);
+
+        int[] accounts = {second, first};
+        LocalDate from = day.minusDays(1);
+        // Pages of three split the run of five after its second row
+        List<TransactionRow> firstPage = db.getTransactions(accounts, from, null, null, 3);
+        assertEquals(List.of("before", "run0", "run1"), firstPage.stream().map(TransactionRow::name).toList());
+        assertEquals(expected(accounts, from, null), pages(accounts, from, null, 3));
+    }
+
+    @Test
+    void pageWithoutRoomIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> db.getTransactions(new int[]{first}, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> db.getTransactions(new int[0], null, null, null, -1));
+    }
+
+    private List<Integer> pages(int[] accounts, LocalDate from, LocalDate to, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        TransactionKey after = null;
+        List<TransactionRow> page;
+        do {
+            page = db.getTransactions(accounts, from, to, after, limit);
+            page.forEach(row -> ids.add(row.id()));
+            if (!page.isEmpty()) after = TransactionKey.of(page.get(page.size() - 1));
+        } while (page.size() == limit);
+        return ids;
+    }
+
+    private List<Integer> expected(int[] accounts, LocalDate from, LocalDate to) {
+        return db.getTransactions(accounts).stream()
+                .filter(row -> from == null || row.date() >= from.toEpochDay())
+                .filter(row -> to == null || row.date() <= to.toEpochDay())
+                .sorted(Comparator.comparingInt(TransactionRow::date).thenComparingInt(TransactionRow::id))
+                .map(TransactionRow::id)
+                .toList();
+    }
+}
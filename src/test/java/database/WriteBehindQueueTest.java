@@ -0,0 +1,96 @@
+package database;
+
+import database.enums.TransactionType;
+import database.records.TransactionRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link SqlManager#getBalance(int, WriteBehindQueue)} counts queued balance changes exactly once,
+ * before and after they are written, and that edits survive a batch that fails to commit.
+ */
+class WriteBehindQueueTest {
+
+    /**
+     * A database manager whose transaction updates fail while {@link #failWrites} is set.
+     */
+    private static final class FailingSqlManager extends SqlManager {
+        volatile boolean failWrites;
+
+        FailingSqlManager(String url) {
+            super(url, 1);
+        }
+
+        @Override
+        public void updateTransaction(int tran_id, LocalDate date, String name, TransactionType type, Long amount) {
+            if (failWrites) throw new RuntimeException("Disk is full");
+            super.updateTransaction(tran_id, date, name, type, amount);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private FailingSqlManager db;
+    private WriteBehindQueue queue;
+    private int acc_id;
+    private int tran_id;
+
+    @BeforeEach
+    void open() {
+        db = new FailingSqlManager("jdbc:sqlite:" + dir.resolve("finance.db"));
+        queue = new WriteBehindQueue(db);
+        acc_id = db.addAccount("Checking", null, null);
+        tran_id = db.addTransaction(acc_id, LocalDate.of(2024, 5, 1), "salary", TransactionType.DEPOSIT, 10_000, false);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        queue.close();
+        db.close();
+    }
+
+    @Test
+    void balanceIncludesQueuedChangesBeforeAndAfterTheyAreWritten() {
+        queue.setTransactionAmount(tran_id, acc_id, 12_500, 2_500);
+        queue.setTransactionType(tran_id, acc_id, TransactionType.WITHDRAW, -25_000);
+        assertEquals(-12_500, db.getBalance(acc_id, queue));
+
+        queue.flush();
+        assertEquals(0, queue.pendingBalanceChange(acc_id));
+        assertEquals(-12_500, db.getAccount(acc_id).balance());
+        assertEquals(-12_500, db.getBalance(acc_id, queue));
+    }
+
+    @Test
+    void editsOfAFailedBatchStayQueuedAndLandOnTheNextFlush() {
+        db.failWrites = true;
+        queue.setTransactionAmount(tran_id, acc_id, 12_500, 2_500);
+        assertThrows(RuntimeException.class, queue::flush);
+
+        assertTrue(queue.hasPending());
+        assertEquals(2_500, queue.pendingBalanceChange(acc_id));
+        assertEquals(12_500, db.getBalance(acc_id, queue));
+        assertEquals(10_000, db.getTransaction(tran_id).amount());
+
+        // An edit made after the failure joins the requeued one instead of replacing it
+        db.failWrites = false;
+        queue.setTransactionName(tran_id, "bonus");
+        queue.flush();
+
+        TransactionRow written = db.getTransaction(tran_id);
+        assertEquals(12_500, written.amount());
+        assertEquals("bonus", written.name());
+        assertEquals(0, queue.pendingBalanceChange(acc_id));
+        assertEquals(12_500, db.getAccount(acc_id).balance());
+    }
+}
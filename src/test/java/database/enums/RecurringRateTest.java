@@ -0,0 +1,71 @@
+package database.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the occurrence arithmetic of {@link RecurringRate}, in particular that month-based schedules stay
+ * anchored on their start date across short months.
+ */
+class RecurringRateTest {
+
+    private static final LocalDate JAN_31 = LocalDate.of(2023, 1, 31);
+
+    @Test
+    void monthlyScheduleFromMonthEndReturnsToTheThirtyFirst() {
+        assertEquals(LocalDate.of(2023, 2, 28), RecurringRate.MONTHLY.nthOccurrence(JAN_31, 1));
+        assertEquals(LocalDate.of(2023, 3, 31), RecurringRate.MONTHLY.nthOccurrence(JAN_31, 2));
+        assertEquals(LocalDate.of(2023, 4, 30), RecurringRate.MONTHLY.nthOccurrence(JAN_31, 3));
+    }
+
+    @Test
+    void nextOccurrenceAfterFollowsMonthEnds() {
+        assertEquals(LocalDate.of(2023, 2, 28), RecurringRate.MONTHLY.nextOccurrenceAfter(JAN_31, JAN_31));
+        assertEquals(LocalDate.of(2023, 3, 31), RecurringRate.MONTHLY.nextOccurrenceAfter(JAN_31, LocalDate.of(2023, 2, 28)));
+        assertEquals(LocalDate.of(2023, 3, 31), RecurringRate.MONTHLY.nextOccurrenceAfter(JAN_31, LocalDate.of(2023, 3, 1)));
+    }
+
+    @Test
+    void nextOccurrenceAfterDateBeforeStartIsTheStart() {
+        assertEquals(JAN_31, RecurringRate.MONTHLY.nextOccurrenceAfter(JAN_31, LocalDate.of(2022, 12, 1)));
+    }
+
+    @Test
+    void yearlyScheduleFromLeapDayKeepsFebruary29WhenItExists() {
+        LocalDate leapDay = LocalDate.of(2024, 2, 29);
+        assertEquals(LocalDate.of(2025, 2, 28), RecurringRate.YEARLY.nthOccurrence(leapDay, 1));
+        assertEquals(LocalDate.of(2028, 2, 29), RecurringRate.YEARLY.nthOccurrence(leapDay, 4));
+    }
+
+    @Test
+    void countBetweenIsHalfOpen() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        // Mondays Jan 1, 8, 15 and 22; the 22nd is the exclusive end
+        assertEquals(3, RecurringRate.WEEKLY.countBetween(start, start, LocalDate.of(2024, 1, 22)));
+        assertEquals(4, RecurringRate.WEEKLY.countBetween(start, start, LocalDate.of(2024, 1, 23)));
+        assertEquals(1, RecurringRate.BI_WEEKLY.countBetween(start, LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 16)));
+    }
+
+    @Test
+    void countBetweenAcrossMonthEnds() {
+        // Jan 31, Feb 28, Mar 31, Apr 30, May 31 and Jun 30 2023
+        assertEquals(6, RecurringRate.MONTHLY.countBetween(JAN_31, JAN_31, LocalDate.of(2023, 7, 1)));
+        assertEquals(2, RecurringRate.MONTHLY.countBetween(JAN_31, LocalDate.of(2023, 2, 28), LocalDate.of(2023, 4, 1)));
+        assertEquals(1, RecurringRate.QUARTERLY.countBetween(JAN_31, LocalDate.of(2023, 2, 1), LocalDate.of(2023, 5, 1)));
+    }
+
+    @Test
+    void countBetweenEmptyRangeIsZero() {
+        assertEquals(0, RecurringRate.MONTHLY.countBetween(JAN_31, LocalDate.of(2023, 5, 1), LocalDate.of(2023, 5, 1)));
+        assertEquals(0, RecurringRate.MONTHLY.countBetween(JAN_31, LocalDate.of(2023, 5, 1), LocalDate.of(2023, 4, 1)));
+    }
+
+    @Test
+    void occurrencesBeforeStartAreNone() {
+        assertEquals(0, RecurringRate.WEEKLY.occurrencesBefore(JAN_31, JAN_31));
+        assertEquals(0, RecurringRate.WEEKLY.occurrencesBefore(JAN_31, LocalDate.of(2022, 6, 1)));
+    }
+}
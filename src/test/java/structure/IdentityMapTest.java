@@ -0,0 +1,55 @@
+package structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that {@link IdentityMap} keeps one object per ID through growth and removals.
+ */
+class IdentityMapTest {
+
+    @Test
+    void keepsTheFirstObjectMappedToAnId() {
+        IdentityMap<String> map = new IdentityMap<>();
+        String first = "first";
+        assertNull(map.putIfAbsent(7, first));
+        assertSame(first, map.putIfAbsent(7, "second"));
+        assertSame(first, map.get(7));
+    }
+
+    @Test
+    void findsEveryIdAfterGrowingAndRemovingHalf() {
+        IdentityMap<Integer> map = new IdentityMap<>();
+        for (int id = 1; id <= 1000; id++) {
+            map.putIfAbsent(id, id);
+        }
+        for (int id = 2; id <= 1000; id += 2) {
+            assertEquals(id, map.remove(id));
+        }
+
+        assertEquals(500, map.size());
+        for (int id = 1; id <= 1000; id++) {
+            if (id % 2 == 0) assertNull(map.get(id));
+            else assertEquals(id, map.get(id));
+        }
+    }
+
+    @Test
+    void valuesAreASnapshotOfTheMappedObjects() {
+        IdentityMap<Integer> map = new IdentityMap<>();
+        for (int id = 1; id <= 5; id++) {
+            map.putIfAbsent(id, id);
+        }
+        List<Integer> values = map.values();
+        map.remove(3);
+
+        assertEquals(new HashSet<>(List.of(1, 2, 3, 4, 5)), new HashSet<>(values));
+        assertEquals(4, map.values().size());
+    }
+}
@@ -0,0 +1,123 @@
+package structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link Ledger} keeps its elements in date order, bounds date ranges correctly and fails fast
+ * once it changes under an iterator or view.
+ */
+class LedgerTest {
+
+    /**
+     * A ledger element; its day is mutable so moves can be tested.
+     */
+    private static final class Item {
+        int day;
+        final int id;
+
+        Item(int day, int id) {
+            this.day = day;
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return day + "/" + id;
+        }
+    }
+
+    private static Ledger<Item> ledger(Item... items) {
+        Ledger<Item> ledger = new Ledger<>(item -> item.day, item -> item.id);
+        for (Item item : items) {
+            ledger.insert(item);
+        }
+        return ledger;
+    }
+
+    @Test
+    void keepsElementsOrderedByDayThenId() {
+        Item a = new Item(10, 3);
+        Item b = new Item(10, 1);
+        Item c = new Item(5, 9);
+        Item d = new Item(20, 2);
+        Ledger<Item> ledger = ledger(a, b, c, d);
+        assertEquals(List.of(c, b, a, d), ledger);
+
+        c.day = 15;
+        ledger.move(c, 5);
+        assertEquals(List.of(b, a, c, d), ledger);
+        assertTrue(ledger.delete(a));
+        assertFalse(ledger.delete(a));
+        assertEquals(List.of(b, c, d), ledger);
+        assertThrows(IllegalStateException.class, () -> ledger.insert(b));
+    }
+
+    @Test
+    void rangesIncludeBothBoundsAndWholeDays() {
+        Item first = new Item(10, 1);
+        Item second = new Item(10, 2);
+        Item third = new Item(12, 3);
+        Item fourth = new Item(15, 4);
+        Ledger<Item> ledger = ledger(first, second, third, fourth);
+
+        assertEquals(List.of(first, second, third), ledger.between(10, 12));
+        assertEquals(List.of(third, fourth), ledger.between(11, 15));
+        assertEquals(List.of(first, second, third, fourth), ledger.between(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void singleDayRangeHoldsOnlyThatDay() {
+        Item first = new Item(10, 1);
+        Item second = new Item(10, 2);
+        Ledger<Item> ledger = ledger(new Item(9, 5), first, second, new Item(11, 6));
+
+        assertEquals(List.of(first, second), ledger.between(10, 10));
+        assertEquals(List.of(), ledger.between(13, 13));
+    }
+
+    @Test
+    void emptyRangesFindNothing() {
+        Ledger<Item> ledger = ledger(new Item(10, 1), new Item(12, 2));
+
+        // A range ending before it starts
+        assertEquals(List.of(), ledger.between(12, 10));
+        // Ranges entirely before, between and after the data
+        assertEquals(List.of(), ledger.between(0, 9));
+        assertEquals(List.of(), ledger.between(11, 11));
+        assertEquals(List.of(), ledger.between(13, Integer.MAX_VALUE));
+        assertEquals(List.of(), ledger().between(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void iteratorsAndViewsFailFastOnceTheLedgerChanges() {
+        Ledger<Item> ledger = ledger(new Item(10, 1), new Item(12, 2));
+
+        Iterator<Item> iterator = ledger.iterator();
+        iterator.next();
+        ledger.insert(new Item(11, 3));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        List<Item> view = ledger.between(10, 12);
+        assertEquals(3, view.size());
+        ledger.delete(ledger.get(0));
+        assertThrows(ConcurrentModificationException.class, view::size);
+    }
+
+    @Test
+    void callersCannotModifyTheLedger() {
+        Ledger<Item> ledger = ledger(new Item(10, 1));
+
+        assertThrows(UnsupportedOperationException.class, () -> ledger.add(new Item(11, 2)));
+        assertThrows(UnsupportedOperationException.class, () -> ledger.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> ledger.between(0, 20).clear());
+    }
+}
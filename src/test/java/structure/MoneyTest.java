@@ -0,0 +1,53 @@
+package structure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the conversions of {@link Money} between cents and dollar text.
+ */
+class MoneyTest {
+
+    @Test
+    void parsesWholeAndFractionalDollars() {
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(1205, Money.parse(" 12.05 "));
+    }
+
+    @Test
+    void parsesNegativeAmounts() {
+        assertEquals(-307, Money.parse("-3.07"));
+        assertEquals(-50, Money.parse("-0.5"));
+    }
+
+    @Test
+    void acceptsTrailingZerosBeyondCents() {
+        assertEquals(123, Money.parse("1.2300"));
+    }
+
+    @Test
+    void rejectsFractionsOfCentsInsteadOfRounding() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("12.345"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-0.001"));
+    }
+
+    @Test
+    void rejectsText() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("twelve"));
+    }
+
+    @Test
+    void rejectsAmountsBeyondLongCents() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.08"));
+    }
+
+    @Test
+    void formatsCentsWithTwoDecimals() {
+        assertEquals("12.05", Money.format(1205));
+        assertEquals("-3.07", Money.format(-307));
+        assertEquals("0.00", Money.format(0));
+    }
+}